@@ -1,6 +1,7 @@
 package com.uit.hotelmanagement.auth.config;
 
 import com.uit.hotelmanagement.auth.services.AuthFilterService;
+import com.uit.hotelmanagement.auth.services.RateLimitFilterService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +19,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     private final AuthenticationProvider authenticationProvider;
     private final AuthFilterService authFilterService;
+    private final RateLimitFilterService rateLimitFilterService;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -29,7 +31,9 @@ public class SecurityConfig {
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(authFilterService, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authFilterService, UsernamePasswordAuthenticationFilter.class)
+                // after the token is read, so a signed-in client is limited by its username
+                .addFilterAfter(rateLimitFilterService, AuthFilterService.class);
         return http.build();
     }
 }
\ No newline at end of file
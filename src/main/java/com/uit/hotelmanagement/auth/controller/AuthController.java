@@ -5,20 +5,26 @@ import com.uit.hotelmanagement.auth.entities.User;
 import com.uit.hotelmanagement.auth.services.AuthService;
 import com.uit.hotelmanagement.auth.services.JwtService;
 import com.uit.hotelmanagement.auth.services.RefreshTokenService;
+import com.uit.hotelmanagement.auth.services.TokenRevocationService;
+import com.uit.hotelmanagement.auth.services.UserVersionService;
 import com.uit.hotelmanagement.auth.utils.records.AuthResponse;
 import com.uit.hotelmanagement.auth.utils.records.LoginRequest;
 import com.uit.hotelmanagement.auth.utils.records.RegisterRequest;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.sql.SQLIntegrityConstraintViolationException;
 
 @RestController
@@ -28,6 +34,8 @@ public class AuthController {
     private final AuthService authService;
     private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
+    private final UserVersionService userVersionService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Operation(
             summary = "Register",
@@ -57,16 +65,17 @@ public class AuthController {
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = AuthResponse.class),
                             mediaType = MediaType.APPLICATION_JSON_VALUE)
-            )
+            ),
+            @ApiResponse(responseCode = "429", description = "Throttled or the password hashing queue is full, see Retry-After")
     })
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> loginHandler(@RequestBody LoginRequest loginRequest) {
-        return ResponseEntity.status(HttpStatus.OK).body(authService.Login(loginRequest));
+    public ResponseEntity<AuthResponse> loginHandler(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.OK).body(authService.Login(loginRequest, request.getRemoteAddr()));
     }
 
     @Operation(
             summary = "Refresh access token",
-            description = "We will refresh access token by providing the refreshToken",
+            description = "We will refresh access token by providing the refreshToken, the response carries a new refreshToken and the old one stops working",
             tags = {"Auth"}
     )
     @ApiResponses({
@@ -78,16 +87,68 @@ public class AuthController {
     })
     @PostMapping("/refreshAccessToken") // lấy accessToken mới khi accessToken cũ hết hạn
     public ResponseEntity<AuthResponse> refreshAccessTokenHandler(String refreshToken) {
-        // check for refreshToken has expired?
-        RefreshToken usefulRefreshToken = refreshTokenService.verifyRefreshToken(refreshToken);
+        // check for refreshToken has expired? then replace it so it can't be used again
+        RefreshToken rotatedRefreshToken = refreshTokenService.rotateRefreshToken(refreshToken);
 
-        User existingUser = usefulRefreshToken.getUser();
+        User existingUser = rotatedRefreshToken.getUser();
 
         String newAccessToken = jwtService.generateToken(existingUser);
 
         return ResponseEntity.status(HttpStatus.OK).body(AuthResponse.builder()
-                        .refreshToken(refreshToken)
+                        .refreshToken(rotatedRefreshToken.getRefreshToken())
                         .accessToken(newAccessToken)
                 .build());
     }
+
+    @Operation(
+            summary = "Log out",
+            description = "We will revoke the access token of this request and, if given, the refreshToken",
+            tags = {"Auth"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204"),
+            @ApiResponse(responseCode = "401")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logoutHandler(HttpServletRequest request,
+                                              @RequestParam(required = false) String refreshToken) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        Claims claims = authHeader == null || !authHeader.startsWith("Bearer ")
+                ? null
+                : jwtService.validateToken(authHeader.substring(7));
+
+        if (claims == null || tokenRevocationService.isRevoked(claims)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        tokenRevocationService.revoke(claims);
+
+        if (refreshToken != null) {
+            refreshTokenService.revokeRefreshToken(refreshToken);
+        }
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    @Operation(
+            summary = "Log out everywhere",
+            description = "We will revoke every access and refresh token issued to the current user so far",
+            tags = {"Auth"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204"),
+            @ApiResponse(responseCode = "401")
+    })
+    @PostMapping("/logoutAll")
+    public ResponseEntity<Void> logoutAllHandler(Principal principal) {
+        // the path is open to everyone, so an anonymous caller has to be turned away here
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        userVersionService.revokeTokens(principal.getName());
+        refreshTokenService.revokeRefreshTokens(principal.getName());
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
 }
@@ -0,0 +1,39 @@
+package com.uit.hotelmanagement.auth.controller;
+
+import com.uit.hotelmanagement.auth.services.AuthService;
+import com.uit.hotelmanagement.auth.utils.records.LoginStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// outside /api/v1/auth, which is open to everyone
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/loginStats")
+public class LoginStatsController {
+    private final AuthService authService;
+
+    @Operation(
+            summary = "Get the login statistics",
+            description = "We will get the password hashing latency, queue depth, rejections and throttled attempts",
+            tags = {"Auth", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = LoginStats.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getLoginStats")
+    public ResponseEntity<LoginStats> getLoginStatsHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(authService.getLoginStats());
+    }
+}
@@ -0,0 +1,38 @@
+package com.uit.hotelmanagement.auth.controller;
+
+import com.uit.hotelmanagement.auth.services.RateLimitFilterService;
+import com.uit.hotelmanagement.auth.utils.records.RateLimitStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/rateLimit")
+public class RateLimitController {
+    private final RateLimitFilterService rateLimitFilterService;
+
+    @Operation(
+            summary = "Get the rate limit statistics",
+            description = "We will get the tracked clients, allowed and throttled requests and the cost spent",
+            tags = {"Auth", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = RateLimitStats.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getRateLimitStats")
+    public ResponseEntity<RateLimitStats> getRateLimitStatsHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(rateLimitFilterService.getRateLimitStats());
+    }
+}
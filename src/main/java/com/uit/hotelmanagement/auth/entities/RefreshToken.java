@@ -8,7 +8,12 @@ import lombok.NoArgsConstructor;
 
 import java.util.Date;
 
+// one row per signed-in device, only the SHA-256 of the token is stored
 @Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "uk_refresh_tokens_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_expiration", columnList = "expiration_date")
+})
 @Builder
 @Data
 @NoArgsConstructor
@@ -18,11 +23,17 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer refreshTokenId;
 
+    @Column(name = "token_hash", length = 64, nullable = false)
+    private String tokenHash;
+
+    // the raw value, only known right after the token was issued or rotated
+    @Transient
     private String refreshToken;
 
+    @Column(name = "expiration_date")
     private Date expirationDate;
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 }
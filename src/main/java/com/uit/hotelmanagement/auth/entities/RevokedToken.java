@@ -0,0 +1,31 @@
+package com.uit.hotelmanagement.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// an access token signed out before it expired, the row is purged once the token would have expired anyway
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "uk_revoked_tokens_jti", columnList = "jti", unique = true),
+        @Index(name = "idx_revoked_tokens_expiration", columnList = "expiration_date")
+})
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer revokedTokenId;
+
+    @Column(name = "jti", length = 36, nullable = false)
+    private String jti;
+
+    @Column(name = "expiration_date", nullable = false)
+    private Date expirationDate;
+}
@@ -29,8 +29,8 @@ public class User implements UserDetails {
     private String password;
     private String roles;
 
-    @OneToOne(mappedBy = "user")
-    private RefreshToken refreshToken;
+    // bumped to revoke every access token issued so far, null on rows older than the column
+    private Integer tokenVersion;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -1,12 +1,41 @@
 package com.uit.hotelmanagement.auth.repositories;
 
 import com.uit.hotelmanagement.auth.entities.RefreshToken;
-import com.uit.hotelmanagement.auth.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
-    RefreshToken findByUser(User user);
-    Optional<RefreshToken> findByRefreshToken(String refreshToken);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // only succeeds for the caller still holding the current hash, a concurrent rotation of the same token gets 0
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :newHash, r.expirationDate = :expirationDate " +
+            "WHERE r.refreshTokenId = :refreshTokenId AND r.tokenHash = :oldHash")
+    int rotate(@Param("refreshTokenId") Integer refreshTokenId,
+               @Param("oldHash") String oldHash,
+               @Param("newHash") String newHash,
+               @Param("expirationDate") Date expirationDate);
+
+    @Query("SELECT r.refreshTokenId FROM RefreshToken r WHERE r.expirationDate < :now")
+    List<Integer> findExpiredIds(@Param("now") Date now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r " +
+            "WHERE r.user.userId IN (SELECT u.userId FROM User u WHERE u.username = :username)")
+    int deleteByUsername(@Param("username") String username);
 }
@@ -0,0 +1,25 @@
+package com.uit.hotelmanagement.auth.repositories;
+
+import com.uit.hotelmanagement.auth.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Integer> {
+    boolean existsByJti(String jti);
+
+    long countByExpirationDateAfter(Date now);
+
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.expirationDate > :now")
+    List<String> findActiveJtis(@Param("now") Date now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expirationDate <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
@@ -1,11 +1,30 @@
 package com.uit.hotelmanagement.auth.repositories;
 
 import com.uit.hotelmanagement.auth.entities.User;
+import com.uit.hotelmanagement.auth.utils.records.UserVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
+
+    // rows created before token versions existed count as version 0
+    @Query("SELECT new com.uit.hotelmanagement.auth.utils.records.UserVersion(u.username, COALESCE(u.tokenVersion, 0)) " +
+            "FROM User u")
+    List<UserVersion> findAllTokenVersions();
+
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.username = :username")
+    Optional<Integer> findTokenVersion(@Param("username") String username);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.username = :username")
+    int incrementTokenVersion(@Param("username") String username);
 }
@@ -1,11 +1,14 @@
 package com.uit.hotelmanagement.auth.services;
 
+import com.uit.hotelmanagement.auth.entities.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,12 +18,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class AuthFilterService extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserVersionService userVersionService;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${project.auth.stateless:true}")
+    private boolean stateless;
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
@@ -34,12 +43,16 @@ public class AuthFilterService extends OncePerRequestFilter {
 
         String jwtToken = authHeader.substring(7);
 
-        String username = jwtService.extractUsername(jwtToken);
+        // verified once, a repeated token is answered from the claims cache
+        Claims claims = jwtService.validateToken(jwtToken);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // a revoked token costs a Bloom filter lookup, the table is only read on a filter hit
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !tokenRevocationService.isRevoked(claims)) {
+            UserDetails userDetails = authenticate(claims);
 
-            if (jwtService.isTokenValid(jwtToken, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -56,4 +69,39 @@ public class AuthFilterService extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // roles and version come from the token, the users table is only read for older tokens and unknown users
+    private UserDetails authenticate(Claims claims) {
+        String username = claims.getSubject();
+        Integer tokenVersion = claims.get(JwtService.VERSION_CLAIM, Integer.class);
+        List<?> roles = claims.get(JwtService.ROLES_CLAIM, List.class);
+
+        if (stateless && tokenVersion != null && roles != null) {
+            Integer currentVersion = userVersionService.getVersion(username);
+
+            if (currentVersion != null) {
+                return tokenVersion.equals(currentVersion) ? userFromClaims(username, roles) : null;
+            }
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+        if (userDetails instanceof User user) {
+            int currentVersion = user.getTokenVersion() == null ? 0 : user.getTokenVersion();
+            userVersionService.remember(username, currentVersion);
+
+            if (tokenVersion != null && tokenVersion != currentVersion) {
+                return null;
+            }
+        }
+
+        return userDetails;
+    }
+
+    private UserDetails userFromClaims(String username, List<?> roles) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("")
+                .authorities(roles.stream().map(String::valueOf).toArray(String[]::new))
+                .build();
+    }
+}
@@ -5,14 +5,11 @@ import com.uit.hotelmanagement.auth.entities.User;
 import com.uit.hotelmanagement.auth.repositories.UserRepository;
 import com.uit.hotelmanagement.auth.utils.records.AuthResponse;
 import com.uit.hotelmanagement.auth.utils.records.LoginRequest;
+import com.uit.hotelmanagement.auth.utils.records.LoginStats;
 import com.uit.hotelmanagement.auth.utils.records.RegisterRequest;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.sql.SQLIntegrityConstraintViolationException;
@@ -20,28 +17,24 @@ import java.sql.SQLIntegrityConstraintViolationException;
 @Service
 @RequiredArgsConstructor
 public class AuthService {
-    private final AuthenticationManager authenticationManager;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashService passwordHashService;
+    private final LoginThrottleService loginThrottleService;
     private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
     private final UserRepository userRepository;
-    public AuthResponse Login(LoginRequest loginRequest) {
+    public AuthResponse Login(LoginRequest loginRequest, String clientAddress) {
+        loginThrottleService.acquire(loginRequest.username(), clientAddress);
+
+        // the only lookup of the login, the password is checked against this row instead of loading it again
         User existingUser = userRepository.findByUsername(loginRequest.username())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", loginRequest.username()));
 
-        try {
-            Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    loginRequest.username(),
-                    loginRequest.password()
-            );
-
-            authenticationManager.authenticate(authentication);
-
-        } catch (BadCredentialsException e) {
+        if (loginRequest.password() == null
+                || !passwordHashService.matches(loginRequest.password(), existingUser.getPassword())) {
             throw new BadCredentialsException("Invalid username or password!");
         }
 
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(loginRequest.username());
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(existingUser);
 
         String accessToken = jwtService.generateToken(existingUser);
 
@@ -57,13 +50,13 @@ public class AuthService {
 
         User newUser = User.builder()
                 .username(registerRequest.username())
-                .password(passwordEncoder.encode(registerRequest.password()))
+                .password(passwordHashService.encode(registerRequest.password()))
                 .roles("USER")
                 .build();
 
         User savedUser = userRepository.save(newUser);
 
-        RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(registerRequest.username());
+        RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(savedUser);
 
         String accessToken = jwtService.generateToken(savedUser);
 
@@ -72,4 +65,11 @@ public class AuthService {
                 .accessToken(accessToken)
                 .build();
     }
+
+    public LoginStats getLoginStats() {
+        return passwordHashService.getLoginStats().toBuilder()
+                .throttledByUsername(loginThrottleService.getThrottledByUsername())
+                .throttledByAddress(loginThrottleService.getThrottledByAddress())
+                .build();
+    }
 }
@@ -1,44 +1,112 @@
 package com.uit.hotelmanagement.auth.services;
 
+import com.uit.hotelmanagement.auth.entities.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${project.secretKey}")
-    private String SECRET_KEY;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERSION_CLAIM = "ver";
+
+    // decoded and built once, both are immutable and safe to share between requests
+    private final Key signInKey;
+    private final JwtParser parser;
+
+    // verified claims by token digest, an entry lives until its token's exp, lookups never take a lock
+    private final ConcurrentHashMap<String, Claims> verifiedClaims = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public JwtService(@Value("${project.secretKey}") String secretKey,
+                      @Value("${project.jwtCache.maxSize:10000}") int maxSize) {
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secretKey));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        this.maxSize = maxSize;
+    }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+
+        // enough for the auth filter to authorize a request without loading the user
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        if (userDetails instanceof User user) {
+            claims.put(VERSION_CLAIM, user.getTokenVersion() == null ? 0 : user.getTokenVersion());
+        }
+
         return createToken(claims, userDetails.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String username) {
         return Jwts.builder()
                 .setClaims(claims)
+                // jti, lets a single token be revoked
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 12))
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
+    // one signature check and parse per token, null when the token is forged, malformed or expired
+    public Claims validateToken(String token) {
+        String digest = digest(token);
+
+        Claims claims = verifiedClaims.get(digest);
+        if (claims == null) {
+            try {
+                claims = parser.parseClaimsJws(token).getBody();
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+
+            // when full, tokens are still verified, just not remembered until the sweep makes room
+            if (claims.getExpiration() != null && verifiedClaims.size() < maxSize) {
+                verifiedClaims.putIfAbsent(digest, claims);
+            }
+        }
+
+        // an entry outlives its token until the next sweep
+        if (claims.getExpiration() == null || claims.getExpiration().before(new Date())) {
+            verifiedClaims.remove(digest, claims);
+            return null;
+        }
+
+        return claims;
+    }
+
+    // drops the claims of tokens that expired without being presented again
+    @Scheduled(fixedDelayString = "${project.jwtCache.sweepInterval:PT1M}")
+    public void evictExpiredClaims() {
+        Date now = new Date();
+        verifiedClaims.values().removeIf(claims -> claims.getExpiration().before(now));
+    }
+
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -61,11 +129,17 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        return !isTokenExpired(token) && extractUsername(token).equals(userDetails.getUsername());
+        Claims claims = validateToken(token);
+        return claims != null && claims.getSubject().equals(userDetails.getUsername());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // the raw token is never kept in memory, only its SHA-256
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
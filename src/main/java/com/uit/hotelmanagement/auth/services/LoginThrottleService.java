@@ -0,0 +1,47 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.uit.hotelmanagement.exceptions.TooManyRequestsException;
+import com.uit.hotelmanagement.utils.TokenBuckets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// checked before the user lookup and the hash, a throttled attempt costs neither
+@Service
+public class LoginThrottleService {
+    // guessing one account from many addresses is limited by the username,
+    // stuffing many accounts from one address by the address
+    private final TokenBuckets usernameBuckets;
+    private final TokenBuckets addressBuckets;
+
+    public LoginThrottleService(@Value("${project.login.maxKeys:100000}") int maxKeys,
+                                @Value("${project.login.usernameBurst:10}") int usernameBurst,
+                                @Value("${project.login.usernameRefill:PT6S}") Duration usernameRefill,
+                                @Value("${project.login.addressBurst:30}") int addressBurst,
+                                @Value("${project.login.addressRefill:PT1S}") Duration addressRefill) {
+        this.usernameBuckets = new TokenBuckets(maxKeys, usernameBurst, usernameRefill);
+        this.addressBuckets = new TokenBuckets(maxKeys, addressBurst, addressRefill);
+    }
+
+    public void acquire(String username, String address) {
+        long waitNanos = addressBuckets.tryAcquire(address, 1);
+
+        // the address is checked first so a flood from one client doesn't drain the victim's username bucket
+        if (waitNanos == 0) {
+            waitNanos = usernameBuckets.tryAcquire(String.valueOf(username).toLowerCase(), 1);
+        }
+
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException("Too many login attempts, try again later!", Duration.ofNanos(waitNanos));
+        }
+    }
+
+    public long getThrottledByUsername() {
+        return usernameBuckets.getRejections();
+    }
+
+    public long getThrottledByAddress() {
+        return addressBuckets.getRejections();
+    }
+}
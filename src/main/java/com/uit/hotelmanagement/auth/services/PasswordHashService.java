@@ -0,0 +1,122 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.uit.hotelmanagement.auth.utils.records.LoginStats;
+import com.uit.hotelmanagement.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// bcrypt runs on a few dedicated threads, a login burst queues up behind them instead of taking every core
+@Service
+public class PasswordHashService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int queueSize;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHashService(PasswordEncoder passwordEncoder,
+                               @Value("${project.login.hashThreads:0}") int threads,
+                               @Value("${project.login.queueSize:32}") int queueSize) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 leaves half of the cores to the rest of the API
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueSize = queueSize;
+        // a full queue rejects at once, the caller answers 429 instead of piling up request threads
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return hash(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return hash(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // throttling counts are filled in by AuthService
+    public LoginStats getLoginStats() {
+        long count = completed.sum();
+
+        return LoginStats.builder()
+                .hashThreads(threads)
+                .activeHashes(executor.getActiveCount())
+                .queuedHashes(executor.getQueue().size())
+                .queueCapacity(queueSize)
+                .completedHashes(count)
+                .rejectedHashes(rejected.sum())
+                .averageHashMillis(count == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / count)
+                .maxHashMillis(maxHashNanos.get() / 1_000_000.0)
+                .averageQueueMillis(count == 0 ? 0.0 : queueNanos.sum() / 1_000_000.0 / count)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T hash(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    completed.increment();
+                    hashNanos.add(elapsed);
+                    queueNanos.add(startedAt - submittedAt);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many logins are being processed, try again shortly!", retryAfter());
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        }
+    }
+
+    // roughly how long the queue in front of us takes to drain
+    private Duration retryAfter() {
+        long count = completed.sum();
+        long averageNanos = count == 0 ? TimeUnit.MILLISECONDS.toNanos(100) : hashNanos.sum() / count;
+
+        return Duration.ofNanos(averageNanos * (executor.getQueue().size() + threads) / threads);
+    }
+}
@@ -0,0 +1,140 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uit.hotelmanagement.auth.utils.records.RateLimitStats;
+import com.uit.hotelmanagement.utils.TokenBuckets;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// runs right after AuthFilterService, a signed-in client is limited by its username, everyone else by address
+@Service
+public class RateLimitFilterService extends OncePerRequestFilter {
+    private static final String AUTH_PATH = "/api/v1/auth/**";
+
+    private record CostRule(String pattern, int cost) {
+    }
+
+    private final TokenBuckets buckets;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final Duration refillInterval;
+    private final List<CostRule> costRules = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder allowedCost = new LongAdder();
+
+    public RateLimitFilterService(ObjectMapper objectMapper,
+                                  @Value("${project.rateLimit.enabled:true}") boolean enabled,
+                                  @Value("${project.rateLimit.maxClients:100000}") int maxClients,
+                                  @Value("${project.rateLimit.capacity:100}") int capacity,
+                                  @Value("${project.rateLimit.refill:PT0.1S}") Duration refillInterval,
+                                  @Value("${project.rateLimit.costs:}") String[] costs) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.refillInterval = refillInterval;
+        this.buckets = new TokenBuckets(maxClients, capacity, refillInterval);
+
+        // "pattern=cost", the first matching pattern wins, anything unmatched costs 1
+        for (String cost : costs) {
+            int separator = cost.lastIndexOf('=');
+            if (separator > 0) {
+                costRules.add(new CostRule(cost.substring(0, separator).trim(),
+                        Integer.parseInt(cost.substring(separator + 1).trim())));
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int cost = costOf(path);
+
+        long waitNanos = buckets.tryAcquire(clientKey(request, path), cost);
+
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+
+        allowed.increment();
+        allowedCost.add(cost);
+
+        filterChain.doFilter(request, response);
+    }
+
+    public RateLimitStats getRateLimitStats() {
+        return RateLimitStats.builder()
+                .trackedClients(buckets.size())
+                .capacity(capacity)
+                .tokensPerSecond((double) TimeUnit.SECONDS.toNanos(1) / refillInterval.toNanos())
+                .allowedRequests(allowed.sum())
+                .throttledRequests(buckets.getRejections())
+                .allowedCost(allowedCost.sum())
+                .build();
+    }
+
+    int costOf(String path) {
+        for (CostRule costRule : costRules) {
+            if (pathMatcher.match(costRule.pattern(), path)) {
+                return costRule.cost();
+            }
+        }
+        return 1;
+    }
+
+    // the auth endpoints are keyed by address even with a token, so logins can't be spread across accounts
+    private String clientKey(HttpServletRequest request, String path) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)
+                && !pathMatcher.match(AUTH_PATH, path)) {
+            return "user:" + authentication.getName();
+        }
+
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        // whole seconds, rounded up so a client that waits exactly that long gets through
+        long retryAfterSeconds = Math.max(1, (TimeUnit.NANOSECONDS.toMillis(waitNanos) + 999) / 1000);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+
+        objectMapper.writeValue(response.getOutputStream(), ProblemDetail.forStatusAndDetail(
+                HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later!"));
+    }
+}
@@ -6,38 +6,77 @@ import com.uit.hotelmanagement.auth.repositories.RefreshTokenRepository;
 import com.uit.hotelmanagement.auth.repositories.UserRepository;
 import com.uit.hotelmanagement.exceptions.RefreshTokenException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
-import lombok.RequiredArgsConstructor;
+import com.uit.hotelmanagement.utils.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
-import java.util.UUID;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration validity;
+    private final int purgeBatchSize;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // token hash -> row of the active tokens, null when disabled
+    private final BoundedCache<String, RefreshToken> activeTokens;
+
+    public RefreshTokenService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository,
+                               @Value("${project.refreshToken.validity:PT24H}") Duration validity,
+                               @Value("${project.refreshToken.purgeBatchSize:500}") int purgeBatchSize,
+                               @Value("${project.refreshToken.cache.enabled:false}") boolean cacheEnabled,
+                               @Value("${project.refreshToken.cache.maxSize:10000}") int cacheMaxSize,
+                               @Value("${project.refreshToken.cache.ttl:PT15M}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.validity = validity;
+        this.purgeBatchSize = purgeBatchSize;
+        this.activeTokens = cacheEnabled ? new BoundedCache<>("refreshTokens", cacheMaxSize, cacheTtl) : null;
+    }
+
     // create
     public RefreshToken createRefreshToken(String username) {
         User existingUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
 
-        if (existingUser.getRefreshToken() == null) {
-            RefreshToken newRefreshToken = RefreshToken.builder()
-                    .refreshToken(UUID.randomUUID().toString())
-                    .expirationDate(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
-                    .user(existingUser)
-                    .build();
+        return createRefreshToken(existingUser);
+    }
+
+    // for callers that already hold the user, every sign-in gets its own token
+    public RefreshToken createRefreshToken(User existingUser) {
+        String rawToken = newRawToken();
 
-            return refreshTokenRepository.save(newRefreshToken);
-        }
+        RefreshToken newRefreshToken = refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .expirationDate(newExpirationDate())
+                .user(existingUser)
+                .build());
+
+        remember(newRefreshToken);
+        newRefreshToken.setRefreshToken(rawToken);
 
-        return existingUser.getRefreshToken();
+        return newRefreshToken;
     }
+
     // check token has expired
     public RefreshToken verifyRefreshToken(String refreshToken) {
-        RefreshToken existingToken = refreshTokenRepository.findByRefreshToken(refreshToken)
-                .orElseThrow(() -> new ResourceNotFoundException("Token", "refreshToken", refreshToken));
+        RefreshToken existingToken = find(hash(refreshToken))
+                .orElseThrow(() -> new RefreshTokenException("Refresh token is invalid!"));
 
         if (existingToken.getExpirationDate().before(new Date())) {
             throw new RefreshTokenException("Refresh token has expired!");
@@ -45,4 +84,113 @@ public class RefreshTokenService {
 
         return existingToken;
     }
+
+    // a used token is replaced by a new one, presenting the old one again fails
+    public RefreshToken rotateRefreshToken(String refreshToken) {
+        RefreshToken existingToken = verifyRefreshToken(refreshToken);
+
+        String rawToken = newRawToken();
+        RefreshToken rotatedToken = RefreshToken.builder()
+                .refreshTokenId(existingToken.getRefreshTokenId())
+                .tokenHash(hash(rawToken))
+                .expirationDate(newExpirationDate())
+                .user(existingToken.getUser())
+                .build();
+
+        int updated = refreshTokenRepository.rotate(existingToken.getRefreshTokenId(), existingToken.getTokenHash(),
+                rotatedToken.getTokenHash(), rotatedToken.getExpirationDate());
+
+        forget(existingToken.getTokenHash());
+
+        if (updated == 0) {
+            throw new RefreshTokenException("Refresh token has already been used!");
+        }
+
+        remember(rotatedToken);
+        rotatedToken.setRefreshToken(rawToken);
+
+        return rotatedToken;
+    }
+
+    public void revokeRefreshToken(String refreshToken) {
+        String tokenHash = hash(refreshToken);
+
+        refreshTokenRepository.deleteByTokenHash(tokenHash);
+        forget(tokenHash);
+    }
+
+    public void revokeRefreshTokens(String username) {
+        refreshTokenRepository.deleteByUsername(username);
+
+        if (activeTokens != null) {
+            activeTokens.invalidateAll();
+        }
+    }
+
+    // small batches, each in its own transaction, so the purge never holds long locks on the table
+    @Scheduled(fixedDelayString = "${project.refreshToken.purgeInterval:PT1H}")
+    public int purgeExpiredTokens() {
+        Date now = new Date();
+        int purged = 0;
+        List<Integer> expiredIds;
+
+        do {
+            expiredIds = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, purgeBatchSize));
+
+            if (!expiredIds.isEmpty()) {
+                refreshTokenRepository.deleteAllByIdInBatch(expiredIds);
+                purged += expiredIds.size();
+            }
+        } while (expiredIds.size() == purgeBatchSize);
+
+        // cached copies of purged rows are rejected as expired on read and age out of the cache
+        return purged;
+    }
+
+    private Optional<RefreshToken> find(String tokenHash) {
+        if (activeTokens == null) {
+            return refreshTokenRepository.findByTokenHash(tokenHash);
+        }
+
+        return Optional.ofNullable(activeTokens.get(tokenHash,
+                key -> refreshTokenRepository.findByTokenHash(key).orElse(null)));
+    }
+
+    // a copy, so the raw token the caller sets on its own instance never sits in the cache
+    private void remember(RefreshToken refreshToken) {
+        if (activeTokens != null) {
+            activeTokens.put(refreshToken.getTokenHash(), RefreshToken.builder()
+                    .refreshTokenId(refreshToken.getRefreshTokenId())
+                    .tokenHash(refreshToken.getTokenHash())
+                    .expirationDate(refreshToken.getExpirationDate())
+                    .user(refreshToken.getUser())
+                    .build());
+        }
+    }
+
+    private void forget(String tokenHash) {
+        if (activeTokens != null) {
+            activeTokens.invalidate(tokenHash);
+        }
+    }
+
+    private String newRawToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private Date newExpirationDate() {
+        return new Date(System.currentTimeMillis() + validity.toMillis());
+    }
+
+    // the token is random enough that an unsalted hash can't be reversed, and it keeps the lookup indexable
+    private String hash(String rawToken) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(String.valueOf(rawToken).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
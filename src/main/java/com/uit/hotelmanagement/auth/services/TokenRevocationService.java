@@ -0,0 +1,108 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.uit.hotelmanagement.auth.entities.RevokedToken;
+import com.uit.hotelmanagement.auth.repositories.RevokedTokenRepository;
+import com.uit.hotelmanagement.utils.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+// revoked jtis live in the revoked_tokens table, a Bloom filter in front of it answers the common
+// "not revoked" case without a query, only a filter hit is confirmed against the table
+@Service
+public class TokenRevocationService {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+
+    // swapped whole by a rebuild, never emptied in place
+    private volatile BloomFilter revoked;
+    // the filter a rebuild is filling, revocations go into it too so the swap can't lose one
+    private BloomFilter rebuilding;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${project.revocation.expectedTokens:10000}") long expectedTokens,
+                                  @Value("${project.revocation.falsePositiveRate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.revoked = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    // before the first request, a token revoked before a restart must stay revoked
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    // tokens issued before jtis existed can't be revoked one by one, only through the token version
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+
+        return jti != null && revoked.mightContain(jti) && revokedTokenRepository.existsByJti(jti);
+    }
+
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+
+        if (jti == null || claims.getExpiration() == null) {
+            return;
+        }
+
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            try {
+                revokedTokenRepository.save(RevokedToken.builder()
+                        .jti(jti)
+                        .expirationDate(claims.getExpiration())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // revoked concurrently
+            }
+        }
+
+        synchronized (this) {
+            revoked.add(jti);
+            if (rebuilding != null) {
+                rebuilding.add(jti);
+            }
+        }
+    }
+
+    // a fresh filter drops expired jtis and picks up revocations made on other nodes,
+    // requests keep reading the old one until the new one is complete
+    @Scheduled(fixedDelayString = "${project.revocation.rebuildInterval:PT1M}",
+            initialDelayString = "${project.revocation.rebuildInterval:PT1M}")
+    public void rebuild() {
+        Date now = new Date();
+        revokedTokenRepository.deleteExpired(now);
+
+        // twice the current count, so revocations until the next rebuild keep the false positive rate
+        BloomFilter filter = new BloomFilter(
+                Math.max(expectedTokens, 2 * revokedTokenRepository.countByExpirationDateAfter(now)), falsePositiveRate);
+
+        // registered before the read, a revocation racing with it lands in both
+        synchronized (this) {
+            rebuilding = filter;
+        }
+
+        try {
+            revokedTokenRepository.findActiveJtis(now).forEach(filter::add);
+        } catch (RuntimeException e) {
+            // keep serving the old filter, the next rebuild tries again
+            synchronized (this) {
+                rebuilding = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            revoked = filter;
+            rebuilding = null;
+        }
+    }
+}
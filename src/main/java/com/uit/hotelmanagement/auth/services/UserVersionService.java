@@ -0,0 +1,59 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.uit.hotelmanagement.auth.repositories.UserRepository;
+import com.uit.hotelmanagement.auth.utils.records.UserVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// username -> token version, lets the auth filter check a token without reading the users table
+@Service
+@RequiredArgsConstructor
+public class UserVersionService {
+    private final UserRepository userRepository;
+
+    // replaced as a whole, readers never lock
+    private volatile Map<String, Integer> versions = Map.of();
+
+    // also runs right after startup
+    @Scheduled(fixedDelayString = "${project.userVersions.refreshInterval:PT30S}")
+    public void refresh() {
+        Map<String, Integer> loaded = new HashMap<>();
+        for (UserVersion userVersion : userRepository.findAllTokenVersions()) {
+            loaded.put(userVersion.username(), userVersion.tokenVersion());
+        }
+
+        replace(loaded);
+    }
+
+    // null when the user isn't known yet, the caller then reads the users table
+    public Integer getVersion(String username) {
+        return versions.get(username);
+    }
+
+    public void remember(String username, Integer tokenVersion) {
+        merge(Map.of(username, tokenVersion));
+    }
+
+    // every access token issued to the user so far stops working, on this node at once and on others by the next refresh
+    public void revokeTokens(String username) {
+        userRepository.incrementTokenVersion(username);
+        userRepository.findTokenVersion(username).ifPresent(tokenVersion -> remember(username, tokenVersion));
+    }
+
+    // deleted users drop out, versions only grow so a refresh that read the table before a revocation can't undo it
+    private synchronized void replace(Map<String, Integer> loaded) {
+        Map<String, Integer> replaced = new HashMap<>(loaded);
+        replaced.replaceAll((username, tokenVersion) -> Math.max(tokenVersion, versions.getOrDefault(username, tokenVersion)));
+        versions = Map.copyOf(replaced);
+    }
+
+    private synchronized void merge(Map<String, Integer> updates) {
+        Map<String, Integer> merged = new HashMap<>(versions);
+        updates.forEach((username, tokenVersion) -> merged.merge(username, tokenVersion, Math::max));
+        versions = Map.copyOf(merged);
+    }
+}
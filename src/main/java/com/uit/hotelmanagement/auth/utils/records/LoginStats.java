@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.auth.utils.records;
+
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+public record LoginStats(
+        Integer hashThreads,
+        Integer activeHashes,
+        Integer queuedHashes,
+        Integer queueCapacity,
+        Long completedHashes,
+        Long rejectedHashes,
+        Double averageHashMillis,
+        Double maxHashMillis,
+        Double averageQueueMillis,
+        Long throttledByUsername,
+        Long throttledByAddress
+) {
+}
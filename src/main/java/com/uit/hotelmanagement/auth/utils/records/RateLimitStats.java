@@ -0,0 +1,14 @@
+package com.uit.hotelmanagement.auth.utils.records;
+
+import lombok.Builder;
+
+@Builder
+public record RateLimitStats(
+        Integer trackedClients,
+        Integer capacity,
+        Double tokensPerSecond,
+        Long allowedRequests,
+        Long throttledRequests,
+        Long allowedCost
+) {
+}
@@ -0,0 +1,4 @@
+package com.uit.hotelmanagement.auth.utils.records;
+
+public record UserVersion(String username, Integer tokenVersion) {
+}
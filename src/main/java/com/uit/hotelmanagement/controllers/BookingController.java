@@ -2,9 +2,12 @@ package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.dtos.BookingDTO;
 import com.uit.hotelmanagement.services.BookingService;
+import com.uit.hotelmanagement.utils.AppConstants;
 import com.uit.hotelmanagement.utils.records.ChangeRoomRequest;
 import com.uit.hotelmanagement.utils.records.CheckInRequest;
 import com.uit.hotelmanagement.utils.records.CheckOutOrExtendRequest;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
+import com.uit.hotelmanagement.utils.records.GroupReservationRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -46,6 +49,25 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(bookingService.reserveRoom(customerId, roomId, bookingDTO));
     }
 
+    @Operation(
+            summary = "Group reservation",
+            description = "We will book several rooms at once by providing customerId and a list of roomId or " +
+                    "room type with dates, either every room is booked or none is",
+            tags = {"Booking", "post"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "201",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                                        mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @PostMapping("/reserveRooms/{customerId}")
+    public ResponseEntity<List<BookingDTO>> reserveRoomsHandler(@PathVariable Integer customerId,
+                                                                @Valid @RequestBody GroupReservationRequest groupReservationRequest) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(bookingService.reserveRooms(customerId, groupReservationRequest));
+    }
+
 // Get
     @Operation(
             summary = "Get all bookings",
@@ -64,6 +86,26 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.OK).body(bookingService.getAllBookings());
     }
 
+    @Operation(
+            summary = "Get all bookings page by page",
+            description = "We will get a page of bookings after the cursor by providing cursor, page size and whether to skip the total count",
+            tags = {"Booking", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = CursorPageResponse.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getAllBookingsWithCursor")
+    public ResponseEntity<CursorPageResponse<BookingDTO>> getAllBookingsWithCursorHandler(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = AppConstants.CURSOR_PAGE_SIZE) Integer pageSize,
+            @RequestParam(defaultValue = "false") Boolean skipCount) {
+        return ResponseEntity.status(HttpStatus.OK).body(bookingService.getAllBookingsWithCursor(cursor, pageSize, skipCount));
+    }
+
     @Operation(
             summary = "Get a specific booking by Id",
             description = "We will get a specific booking by providing Id",
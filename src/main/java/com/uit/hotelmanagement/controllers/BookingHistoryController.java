@@ -2,6 +2,8 @@ package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.dtos.BookingHistoryDTO;
 import com.uit.hotelmanagement.services.BookingHistoryService;
+import com.uit.hotelmanagement.utils.AppConstants;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -42,6 +44,26 @@ public class BookingHistoryController {
         );
     }
 
+    @Operation(
+            summary = "Get all booking histories page by page",
+            description = "We will get a page of booking histories after the cursor by providing cursor, page size and whether to skip the total count",
+            tags = {"Booking history", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = CursorPageResponse.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getAllBookingHistoriesWithCursor")
+    public ResponseEntity<CursorPageResponse<BookingHistoryDTO>> getAllBookingHistoriesWithCursorHandler(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = AppConstants.CURSOR_PAGE_SIZE) Integer pageSize,
+            @RequestParam(defaultValue = "false") Boolean skipCount) {
+        return ResponseEntity.status(HttpStatus.OK).body(bookingHistoryService.getAllBookingHistoriesWithCursor(cursor, pageSize, skipCount));
+    }
+
     @Operation(
             summary = "Get a specific booking history by Id",
             description = "We will get a specific booking history by providing Id",
@@ -0,0 +1,65 @@
+package com.uit.hotelmanagement.controllers;
+
+import com.uit.hotelmanagement.services.CatalogCacheService;
+import com.uit.hotelmanagement.services.ImageResizeService;
+import com.uit.hotelmanagement.services.PhotoCacheService;
+import com.uit.hotelmanagement.utils.records.CacheStats;
+import com.uit.hotelmanagement.utils.records.ResizeStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+    private final CatalogCacheService catalogCacheService;
+    private final PhotoCacheService photoCacheService;
+    private final ImageResizeService imageResizeService;
+
+    @Operation(
+            summary = "Get the cache statistics",
+            description = "We will get size, hits, misses, evictions and hit ratio of the room, service and photo caches",
+            tags = {"Cache", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getCacheStats")
+    public ResponseEntity<List<CacheStats>> getCacheStatsHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(Stream.concat(
+                catalogCacheService.getCacheStats().stream(),
+                Stream.of(photoCacheService.getCacheStats())).toList());
+    }
+
+    @Operation(
+            summary = "Get the photo resize statistics",
+            description = "We will get queued, completed, discarded and failed jobs of the photo resize pipeline",
+            tags = {"Cache", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = ResizeStats.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getResizeStats")
+    public ResponseEntity<ResizeStats> getResizeStatsHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(imageResizeService.getResizeStats());
+    }
+}
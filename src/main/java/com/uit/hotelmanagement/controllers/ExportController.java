@@ -0,0 +1,69 @@
+package com.uit.hotelmanagement.controllers;
+
+import com.uit.hotelmanagement.services.ExportService;
+import com.uit.hotelmanagement.utils.ExportFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/export")
+public class ExportController {
+    private final ExportService exportService;
+
+    @Operation(
+            summary = "Export all bookings",
+            description = "We will stream every booking as NDJSON or CSV by providing the format",
+            tags = {"Export", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}
+            )
+    })
+    @GetMapping("/bookings")
+    public ResponseEntity<StreamingResponseBody> exportBookingsHandler(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+
+        return exportResponse(exportFormat, "bookings",
+                outputStream -> exportService.exportBookings(exportFormat, outputStream));
+    }
+
+    @Operation(
+            summary = "Export all booking histories",
+            description = "We will stream every booking history as NDJSON or CSV by providing the format",
+            tags = {"Export", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}
+            )
+    })
+    @GetMapping("/bookingHistories")
+    public ResponseEntity<StreamingResponseBody> exportBookingHistoriesHandler(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+
+        return exportResponse(exportFormat, "booking-histories",
+                outputStream -> exportService.exportBookingHistories(exportFormat, outputStream));
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(ExportFormat format, String fileName,
+                                                                 StreamingResponseBody body) {
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -1,19 +1,21 @@
 package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.services.FileService;
+import com.uit.hotelmanagement.utils.PhotoSize;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 
 @RestController
@@ -42,29 +44,42 @@ public class FileController {
 
     @Operation(
             summary = "Watch a photo by photoName",
-            description = "We can watch a photo by providing photoName",
+            description = "We can watch a photo by providing photoName and a size: original, thumbnail, medium or large",
             tags = {"File", "get"}
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = byte.class),
-                                        mediaType = "image/png")
-            )
+                                        mediaType = "image/*")
+            ),
+            @ApiResponse(responseCode = "206", description = "The byte range asked for in the Range header"),
+            @ApiResponse(responseCode = "304", description = "The ETag in If-None-Match still matches")
     })
-    @GetMapping(value = "/{photoName}", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> serviceFileHandler(@PathVariable String photoName) {
-        try {
-            FileInputStream resource = fileService.getResourceFile(photoName);
+    @GetMapping("/{photoName}")
+    public ResponseEntity<Resource> serviceFileHandler(@PathVariable String photoName,
+                                                       @RequestParam(defaultValue = "original") String size) {
+        PhotoFile photoFile = fileService.getPhotoFile(photoName, PhotoSize.fromName(size));
+
+        // a stand-in original must not be cached forever under the variant's url
+        CacheControl cacheControl = photoFile.immutable()
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.noCache();
 
-            byte[] photo = StreamUtils.copyToByteArray(resource);
+        // whatever isn't an allowed image is downloaded, never rendered on this origin
+        ContentDisposition contentDisposition = MediaType.APPLICATION_OCTET_STREAM.equals(photoFile.mediaType())
+                ? ContentDisposition.attachment().filename(photoName).build()
+                : ContentDisposition.inline().build();
 
-            return ResponseEntity
-                    .status(HttpStatus.OK)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_PNG_VALUE)
-                    .body(photo);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
+        // the body is streamed from the file, Range is answered with 206 and
+        // a matching If-None-Match with 304 before anything is read
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(photoFile.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .eTag(photoFile.eTag())
+                .cacheControl(cacheControl)
+                .body(photoFile.resource());
     }
 }
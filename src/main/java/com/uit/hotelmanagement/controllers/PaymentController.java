@@ -2,6 +2,8 @@ package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.dtos.PaymentDTO;
 import com.uit.hotelmanagement.services.PaymentService;
+import com.uit.hotelmanagement.utils.AppConstants;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import com.uit.hotelmanagement.utils.records.PaymentRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -61,6 +63,26 @@ public class PaymentController {
         return ResponseEntity.status(HttpStatus.OK).body(paymentService.getAllPayments());
     }
 
+    @Operation(
+            summary = "Get all payments page by page",
+            description = "We will get a page of payments after the cursor by providing cursor, page size and whether to skip the total count",
+            tags = {"Payment", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = CursorPageResponse.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getAllPaymentsWithCursor")
+    public ResponseEntity<CursorPageResponse<PaymentDTO>> getAllPaymentsWithCursorHandler(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = AppConstants.CURSOR_PAGE_SIZE) Integer pageSize,
+            @RequestParam(defaultValue = "false") Boolean skipCount) {
+        return ResponseEntity.status(HttpStatus.OK).body(paymentService.getAllPaymentsWithCursor(cursor, pageSize, skipCount));
+    }
+
     @Operation(
             summary = "Get a specific payment by Id",
             description = "We will get a specific payment by providing Id",
@@ -183,6 +205,23 @@ public class PaymentController {
         return ResponseEntity.status(HttpStatus.OK).body(paymentService.updatePayment(paymentId, paymentRequest));
     }
 
+    @Operation(
+            summary = "Reprice a specific payment",
+            description = "We will price the payment's booking and services again and store the new breakdown and amount by providing paymentId",
+            tags = {"Payment", "put"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = PaymentDTO.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @PutMapping("/repricePayment/{paymentId}")
+    public ResponseEntity<PaymentDTO> repricePaymentHandler(@PathVariable Integer paymentId) {
+        return ResponseEntity.status(HttpStatus.OK).body(paymentService.repricePayment(paymentId));
+    }
+
 //  Delete
     @Operation(
             summary = "Delete a specific payment",
@@ -1,7 +1,9 @@
 package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.dtos.PhotoDTO;
+import com.uit.hotelmanagement.services.PhotoGcService;
 import com.uit.hotelmanagement.services.PhotoService;
+import com.uit.hotelmanagement.utils.records.PhotoGcReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -22,6 +24,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class PhotoController {
     private final PhotoService photoService;
+    private final PhotoGcService photoGcService;
 
     @Operation(
             summary = "Add the photos for a specific room",
@@ -41,6 +44,24 @@ public class PhotoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(photoService.addPhoto(roomId, files));
     }
 
+    @Operation(
+            summary = "Get the orphan photo report",
+            description = "We will list the photo files no photo row names and the photo rows without a file, " +
+                    "nothing is deleted",
+            tags = {"Photo", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = PhotoGcReport.class),
+                            mediaType = "application/json")
+            )
+    })
+    @GetMapping("/getOrphanReport")
+    public ResponseEntity<PhotoGcReport> getOrphanReportHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(photoGcService.collectOrphans(true));
+    }
+
     @Operation(
             summary = "Get all photos",
             description = "We will get all photos from database",
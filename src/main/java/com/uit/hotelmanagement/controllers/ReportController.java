@@ -0,0 +1,115 @@
+package com.uit.hotelmanagement.controllers;
+
+import com.uit.hotelmanagement.services.RevenueReportService;
+import com.uit.hotelmanagement.utils.records.RevenueRow;
+import com.uit.hotelmanagement.utils.records.RollupBackfillReport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/report")
+public class ReportController {
+    private final RevenueReportService revenueReportService;
+
+//  Get
+    @Operation(
+            summary = "Get the revenue rollups",
+            description = "We will get count and amount of the payments per day, payment method and payment status by providing fromDate and toDate",
+            tags = {"Report", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getRevenueRollups")
+    public ResponseEntity<List<RevenueRow>> getRevenueRollupsHandler(@RequestParam String fromDate,
+                                                                     @RequestParam String toDate) {
+        return ResponseEntity.status(HttpStatus.OK).body(revenueReportService.getRevenueRollups(fromDate, toDate));
+    }
+
+    @Operation(
+            summary = "Get the daily revenue",
+            description = "We will get count and amount of the payments per day by providing fromDate and toDate",
+            tags = {"Report", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getDailyRevenue")
+    public ResponseEntity<List<RevenueRow>> getDailyRevenueHandler(@RequestParam String fromDate,
+                                                                   @RequestParam String toDate) {
+        return ResponseEntity.status(HttpStatus.OK).body(revenueReportService.getDailyRevenue(fromDate, toDate));
+    }
+
+    @Operation(
+            summary = "Get the revenue by payment method",
+            description = "We will get count and amount of the payments per payment method by providing fromDate and toDate",
+            tags = {"Report", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getRevenueByPaymentMethod")
+    public ResponseEntity<List<RevenueRow>> getRevenueByPaymentMethodHandler(@RequestParam String fromDate,
+                                                                             @RequestParam String toDate) {
+        return ResponseEntity.status(HttpStatus.OK).body(revenueReportService.getRevenueByPaymentMethod(fromDate, toDate));
+    }
+
+    @Operation(
+            summary = "Get the revenue by payment status",
+            description = "We will get count and amount of the payments per payment status by providing fromDate and toDate",
+            tags = {"Report", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getRevenueByPaymentStatus")
+    public ResponseEntity<List<RevenueRow>> getRevenueByPaymentStatusHandler(@RequestParam String fromDate,
+                                                                             @RequestParam String toDate) {
+        return ResponseEntity.status(HttpStatus.OK).body(revenueReportService.getRevenueByPaymentStatus(fromDate, toDate));
+    }
+
+//  Post
+    @Operation(
+            summary = "Rebuild the revenue rollups",
+            description = "We will recount every rollup from the payments, one month per transaction and a few months in parallel",
+            tags = {"Report", "post"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = RollupBackfillReport.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @PostMapping("/rebuildRevenueRollups")
+    public ResponseEntity<RollupBackfillReport> rebuildRevenueRollupsHandler() {
+        return ResponseEntity.status(HttpStatus.OK).body(revenueReportService.rebuildRollups());
+    }
+}
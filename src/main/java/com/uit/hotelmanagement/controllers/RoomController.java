@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uit.hotelmanagement.dtos.RoomDTO;
 import com.uit.hotelmanagement.services.RoomService;
 import com.uit.hotelmanagement.utils.AppConstants;
+import com.uit.hotelmanagement.utils.records.OccupancyGridResponse;
 import com.uit.hotelmanagement.utils.records.RoomPageResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -194,6 +195,53 @@ public class RoomController {
                 dir));
     }
 
+    @Operation(
+            summary = "Get all available rooms for a date range",
+            description = "We will get all rooms that are free between check-in and check-out date, " +
+                    "optionally filtered by room type and price range",
+            tags = {"Room", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            mediaType = "application/json")
+            )
+    })
+    @GetMapping("/getAllAvailableRooms")
+    public ResponseEntity<List<RoomDTO>> getAllAvailableRoomsHandler(@RequestParam String checkInDate,
+                                                                     @RequestParam String checkOutDate,
+                                                                     @RequestParam(required = false) String roomType,
+                                                                     @RequestParam(required = false) String minPrice,
+                                                                     @RequestParam(required = false) String maxPrice) {
+        return ResponseEntity.status(HttpStatus.OK).body(roomService.getAllAvailableRooms(
+                checkInDate,
+                checkOutDate,
+                roomType,
+                minPrice,
+                maxPrice));
+    }
+
+    @Operation(
+            summary = "Get the occupancy grid of all rooms",
+            description = "We will get the nightly occupancy of every room from fromDate for a number of days, " +
+                    "run-length encoded per room (e.g. 3F5R2O: 3 free, 5 reserved, 2 occupied nights)",
+            tags = {"Room", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = OccupancyGridResponse.class),
+                            mediaType = "application/json")
+            )
+    })
+    @GetMapping("/getOccupancyGrid")
+    public ResponseEntity<OccupancyGridResponse> getOccupancyGridHandler(
+            @RequestParam String fromDate,
+            @RequestParam(defaultValue = AppConstants.GRID_DAYS) Integer days) {
+        return ResponseEntity.status(HttpStatus.OK).body(roomService.getOccupancyGrid(fromDate, days));
+    }
+
     @Operation(
             summary = "Update a specific room",
             description = "We will update a specific room by providing the Id, the roomDTO and the files",
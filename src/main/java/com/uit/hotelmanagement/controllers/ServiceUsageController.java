@@ -2,6 +2,8 @@ package com.uit.hotelmanagement.controllers;
 
 import com.uit.hotelmanagement.dtos.ServiceUsageDTO;
 import com.uit.hotelmanagement.services.ServiceUsageService;
+import com.uit.hotelmanagement.utils.AppConstants;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -61,6 +63,26 @@ public class ServiceUsageController {
         return ResponseEntity.status(HttpStatus.OK).body(sus.getAllServiceUsage());
     }
 
+    @Operation(
+            summary = "Get all ServiceUsages page by page",
+            description = "We will get a page of ServiceUsages after the cursor by providing cursor, page size and whether to skip the total count",
+            tags = {"Service usage", "get"}
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = CursorPageResponse.class),
+                            mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/getAllServiceUsageWithCursor")
+    public ResponseEntity<CursorPageResponse<ServiceUsageDTO>> getAllServiceUsageWithCursorHandler(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = AppConstants.CURSOR_PAGE_SIZE) Integer pageSize,
+            @RequestParam(defaultValue = "false") Boolean skipCount) {
+        return ResponseEntity.status(HttpStatus.OK).body(sus.getAllServiceUsageWithCursor(cursor, pageSize, skipCount));
+    }
+
     @Operation(
             summary = "Get a specific ServiceUsage by Id",
             description = "We will get a specific ServiceUsage by providing Id",
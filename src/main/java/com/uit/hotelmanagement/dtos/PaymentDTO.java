@@ -1,11 +1,14 @@
 package com.uit.hotelmanagement.dtos;
 
+import com.uit.hotelmanagement.utils.records.RoomCharge;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -28,5 +31,16 @@ public class PaymentDTO {
     @Max(value = 3, message = "Payment status must be an integer between 1 and 3")
     private String paymentStatus;
 
+    // the breakdown of amount as it was charged, null for payments taken before it was recorded
+    private String roomPrice;
+
+    private String bookingVoucher;
+
+    private String bookingPrice;
+
+    private String servicePrice;
+
+    private List<RoomCharge> roomCharges;
+
     private BookingDTO bookingDTO;
 }
@@ -18,4 +18,10 @@ public class PhotoDTO {
     private String roomNumber;
 
     private String photoUrl;
+
+    private String thumbnailUrl;
+
+    private String mediumUrl;
+
+    private String largeUrl;
 }
@@ -12,10 +12,24 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+// everything bookingToDTO reads, fetched with the bookings in one query
+@NamedEntityGraph(name = "Booking.listing",
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode("room"),
+                @NamedAttributeNode("payment"),
+                @NamedAttributeNode(value = "serviceUsages", subgraph = "serviceUsages")
+        },
+        subgraphs = @NamedSubgraph(name = "serviceUsages", attributeNodes = @NamedAttributeNode("service"))
+)
+@Table(name = "bookings", indexes = {
+        // overlap lookups: room + status, then date range
+        @Index(name = "idx_bookings_room_status_dates", columnList = "room_id, booking_status, check_in_date, check_out_date")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -57,6 +71,15 @@ public class Booking {
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL)
     private Payment payment;
 
+    @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("fromDate")
+    private List<StaySegment> staySegments;
+
+    // sum of the stay segments before the voucher, null until the booking is checked in
+    @PositiveOrZero(message = "Stay price can't be negative")
+    @Column(precision = 19, scale = 10)
+    private BigDecimal stayPrice;
+
     // Method
     public BigDecimal notChangeRoomCalculate() {
         long stayedDays = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
@@ -68,4 +91,99 @@ public class Booking {
         return roomPrice.multiply(voucher).multiply(BigDecimal.valueOf(stayedDays))
                 .setScale(2, RoundingMode.HALF_EVEN);// làm tròn kiểu ngân hàng đến số chẵn gần nhất.
     }
+
+    // true once the booking has stay segments to price from
+    public boolean hasStaySegments() {
+        return stayPrice != null;
+    }
+
+    public BigDecimal staySegmentsCalculate() {
+        return applyVoucher(stayPrice);
+    }
+
+    // the same price for segments that are not stored on the booking
+    public BigDecimal staySegmentsCalculate(List<StaySegment> segments) {
+        return applyVoucher(sumPrices(segments));
+    }
+
+    // check-in: a single segment in the current room at today's room price
+    public void startStay() {
+        replaceStay(replayStay(room, List.of()));
+    }
+
+    // bookings checked in before stay segments existed: the segments their CHANGE_ROOM histories describe,
+    // built without touching the booking
+    public List<StaySegment> replayStay(Room checkInRoom, List<BookingHistory> roomChanges) {
+        List<StaySegment> segments = new ArrayList<>();
+        segments.add(newSegment(checkInRoom, checkInDate, checkOutDate));
+        roomChanges.forEach(bh -> moveSegments(segments, bh.getRoom(), bh.getChangeDate()));
+        return segments;
+    }
+
+    public void replaceStay(List<StaySegment> segments) {
+        if (staySegments == null) {
+            staySegments = new ArrayList<>();
+        }
+        staySegments.clear();
+        staySegments.addAll(segments);
+
+        recalculateStayPrice();
+    }
+
+    // change room: close the current segment at changeDate and open one in the new room
+    public void moveStay(Room newRoom, LocalDate changeDate) {
+        moveSegments(staySegments, newRoom, changeDate);
+
+        recalculateStayPrice();
+    }
+
+    // extend stay, check-out or edited dates: stretch or trim the segments to the booking's dates
+    public void resizeStay() {
+        staySegments.removeIf(segment -> !segment.getToDate().isAfter(checkInDate)
+                || !segment.getFromDate().isBefore(checkOutDate));
+
+        if (staySegments.isEmpty()) {
+            startStay();
+            return;
+        }
+
+        staySegments.getFirst().setFromDate(checkInDate);
+        staySegments.getLast().setToDate(checkOutDate);
+
+        recalculateStayPrice();
+    }
+
+    private void moveSegments(List<StaySegment> segments, Room newRoom, LocalDate changeDate) {
+        // a change on or before the day a segment started replaces it
+        segments.removeIf(segment -> !segment.getFromDate().isBefore(changeDate));
+
+        if (!segments.isEmpty()) {
+            segments.getLast().setToDate(changeDate);
+        }
+        segments.add(newSegment(newRoom, changeDate, checkOutDate));
+    }
+
+    private StaySegment newSegment(Room segmentRoom, LocalDate fromDate, LocalDate toDate) {
+        return StaySegment.builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .roomPrice(segmentRoom.getPrice())
+                .room(segmentRoom)
+                .booking(this)
+                .build();
+    }
+
+    private void recalculateStayPrice() {
+        stayPrice = sumPrices(staySegments);
+    }
+
+    private BigDecimal sumPrices(List<StaySegment> segments) {
+        return segments.stream().map(StaySegment::calculatePrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private BigDecimal applyVoucher(BigDecimal price) {
+        BigDecimal voucher = BigDecimal.ONE.subtract(bookingVoucher);
+
+        return price.multiply(voucher).setScale(2, RoundingMode.HALF_EVEN);
+    }
 }
@@ -14,9 +14,12 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.List;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_payment_date", columnList = "payment_date")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -43,6 +46,23 @@ public class Payment {
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booking_id")
     private Booking booking;
+
+    // price breakdown fixed when the payment was created or last updated, null on rows older than the columns
+    @Column(precision = 19, scale = 10)
+    private BigDecimal roomPrice;
+
+    private BigDecimal bookingVoucher;
+
+    private BigDecimal bookingPrice;
+
+    private BigDecimal servicePrice;
+
+    @OneToMany(mappedBy = "payment", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("fromDate")
+    private List<PaymentRoomCharge> roomCharges;
 //    Method
+    public boolean isPriced() {
+        return bookingPrice != null;
+    }
 
 }
@@ -0,0 +1,45 @@
+package com.uit.hotelmanagement.entities;
+
+import com.uit.hotelmanagement.utils.PaymentMethod;
+import com.uit.hotelmanagement.utils.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// count and amount of the payments of one day, method and status, kept in step with every payment write
+@Entity
+@Table(name = "payment_daily_rollups", indexes = {
+        @Index(name = "uk_payment_daily_rollups_bucket", columnList = "payment_date, payment_method, payment_status",
+                unique = true)
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PaymentRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer paymentRollupId;
+
+    @Column(name = "payment_date", nullable = false)
+    private LocalDate paymentDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false)
+    private PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name = "amount_sum", nullable = false)
+    private BigDecimal amountSum;
+}
@@ -0,0 +1,53 @@
+package com.uit.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// the nights [fromDate, toDate) in one room as they were charged when the payment was taken,
+// later room or price changes don't touch it
+@Entity
+@Table(name = "payment_room_charges", indexes = {
+        @Index(name = "idx_payment_room_charges_payment", columnList = "payment_id, from_date")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PaymentRoomCharge {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer paymentRoomChargeId;
+
+    private String roomNumber;
+
+    @NotNull(message = "From date can't be null")
+    private LocalDate fromDate;
+
+    @NotNull(message = "To date can't be null")
+    private LocalDate toDate;
+
+    @PositiveOrZero(message = "Room price can't be negative")
+    @Column(precision = 19, scale = 10)
+    private BigDecimal nightlyPrice;
+
+    // nightly price times nights, before the booking voucher
+    @PositiveOrZero(message = "Price can't be negative")
+    @Column(precision = 19, scale = 10)
+    private BigDecimal price;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Payment payment;
+}
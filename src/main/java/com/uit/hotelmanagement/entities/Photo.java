@@ -8,7 +8,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "photos")
+@Table(name = "photos", indexes = {
+        @Index(name = "idx_photos_name", columnList = "name")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -0,0 +1,57 @@
+package com.uit.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// the nights [fromDate, toDate) a checked-in booking spent in one room, priced when the guest moved in
+@Entity
+@Table(name = "stay_segments", indexes = {
+        @Index(name = "idx_stay_segments_booking", columnList = "booking_id, from_date")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class StaySegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer staySegmentId;
+
+    @NotNull(message = "From date can't be null")
+    private LocalDate fromDate;
+
+    @NotNull(message = "To date can't be null")
+    private LocalDate toDate;
+
+    @PositiveOrZero(message = "Room price can't be negative")
+    @Column(precision = 19, scale = 10)
+    private BigDecimal roomPrice;
+
+    @ManyToOne
+    @JoinColumn(name = "room_id")
+    private Room room;
+
+    @ManyToOne
+    @JoinColumn(name = "booking_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Booking booking;
+
+    // Method
+    public BigDecimal calculatePrice() {
+        long nights = ChronoUnit.DAYS.between(fromDate, toDate);
+
+        return roomPrice.multiply(BigDecimal.valueOf(nights));
+    }
+}
@@ -0,0 +1,7 @@
+package com.uit.hotelmanagement.exceptions;
+
+public class PageCursorException extends RuntimeException{
+    public PageCursorException(String message) {
+        super(message);
+    }
+}
@@ -3,15 +3,23 @@ package com.uit.hotelmanagement.repositories;
 import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.BookingHistory;
 import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.utils.AppConstants;
 import com.uit.hotelmanagement.utils.HistoryType;
+import com.uit.hotelmanagement.utils.records.BookingHistoryExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingHistoryRepository extends JpaRepository<BookingHistory, Integer> {
     @Query("SELECT bh FROM BookingHistory bh " +
@@ -45,4 +53,21 @@ public interface BookingHistoryRepository extends JpaRepository<BookingHistory,
     List<BookingHistory> findByFinalTotalPriceBetween(BigDecimal minTotalPrice, BigDecimal maxTotalPrice);
     List<BookingHistory> findByBooking(Booking booking);
     List<BookingHistory> findByRoom(Room room);
+
+    // keyset page: WHERE bookHistoryId > cursor ORDER BY bookHistoryId LIMIT n, no count query
+    @EntityGraph(attributePaths = {"booking", "room"})
+    List<BookingHistory> findByBookHistoryIdGreaterThanOrderByBookHistoryId(Integer cursor, Pageable pageable);
+
+    // export: rows are streamed from the server one at a time and are never managed entities,
+    // must run in a transaction that issues no other statement until the stream is closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.BookingHistoryExportRow(" +
+            "bh.bookHistoryId, b.bookingId, bh.historyType, bh.actualCheckInDate, bh.actualCheckOutDate, " +
+            "bh.changeDate, bh.finalTotalPrice, r.roomNumber, bh.note) " +
+            "FROM BookingHistory bh LEFT JOIN bh.booking b LEFT JOIN bh.room r " +
+            "ORDER BY bh.bookHistoryId")
+    Stream<BookingHistoryExportRow> streamExportRows();
 }
@@ -3,17 +3,103 @@ package com.uit.hotelmanagement.repositories;
 import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.Customer;
 import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.utils.AppConstants;
 import com.uit.hotelmanagement.utils.BookingStatus;
+import com.uit.hotelmanagement.utils.records.BookingExportRow;
+import com.uit.hotelmanagement.utils.records.BookingInterval;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingRepositoryCustom {
     List<Booking> findByCheckInDate(LocalDate checkInDate);
     List<Booking> findByCheckOutDate(LocalDate checkInDate);
     List<Booking> findByBookingStatus(BookingStatus bookingStatus);
     List<Booking> findByCustomer(Customer customer);
     List<Booking> findByRoom(Room room);
     List<Booking> findByRoomAndBookingStatus(Room room, BookingStatus bookingStatus);
+    // SELECT ... LIMIT 1 on (room_id, booking_status), nothing is loaded
+    boolean existsByRoomAndBookingStatus(Room room, BookingStatus bookingStatus);
+
+    // listings: customer, room, payment and service usages come with the bookings, no lazy loads per row
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b")
+    List<Booking> findAllForListing();
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.checkInDate = ?1")
+    List<Booking> findForListingByCheckInDate(LocalDate checkInDate);
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.checkOutDate = ?1")
+    List<Booking> findForListingByCheckOutDate(LocalDate checkOutDate);
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.bookingStatus = ?1")
+    List<Booking> findForListingByBookingStatus(BookingStatus bookingStatus);
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.customer = ?1")
+    List<Booking> findForListingByCustomer(Customer customer);
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.room = ?1")
+    List<Booking> findForListingByRoom(Room room);
+
+    // keyset pages: ids first so the LIMIT isn't applied in memory to the fetched collections
+    @Query("SELECT b.bookingId FROM Booking b WHERE b.bookingId > ?1 ORDER BY b.bookingId")
+    List<Integer> findIdsAfter(Integer cursor, Pageable pageable);
+
+    @EntityGraph("Booking.listing")
+    @Query("SELECT b FROM Booking b WHERE b.bookingId IN ?1 ORDER BY b.bookingId")
+    List<Booking> findForListingByBookingIdIn(Collection<Integer> bookingIds);
+
+    // started bookings from before stay segments existed
+    @Query("SELECT b.bookingId FROM Booking b WHERE b.stayPrice IS NULL AND b.bookingStatus IN ?1 ORDER BY b.bookingId")
+    List<Integer> findIdsWithoutStaySegments(Collection<BookingStatus> bookingStatuses);
+
+    @Query("SELECT COUNT(b) > 0 FROM Booking b WHERE b.room = ?1 " +
+            "AND b.bookingStatus IN ?2 " +
+            "AND b.checkInDate < ?4 AND b.checkOutDate > ?3")
+    boolean existsOverlappingBooking(Room room, Collection<BookingStatus> bookingStatuses,
+                                     LocalDate checkInDate, LocalDate checkOutDate);
+
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.BookingInterval(" +
+            "b.bookingId, b.room.roomId, b.checkInDate, b.checkOutDate, b.bookingStatus) " +
+            "FROM Booking b WHERE b.room.roomId IN ?1 " +
+            "AND b.bookingStatus IN ?2 " +
+            "AND b.checkInDate < ?4 AND b.checkOutDate > ?3")
+    List<BookingInterval> findOverlappingIntervals(Collection<Integer> roomIds, Collection<BookingStatus> bookingStatuses,
+                                                   LocalDate checkInDate, LocalDate checkOutDate);
+
+    @Query("SELECT DISTINCT b.room.roomId FROM Booking b WHERE b.room.roomId IN ?1 AND b.bookingStatus = ?2")
+    List<Integer> findRoomIdsWithBookingStatus(Collection<Integer> roomIds, BookingStatus bookingStatus);
+
+    // only the columns the availability index and occupancy calendar need, no entity loading
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.BookingInterval(" +
+            "b.bookingId, b.room.roomId, b.checkInDate, b.checkOutDate, b.bookingStatus) " +
+            "FROM Booking b WHERE b.bookingStatus IN ?1")
+    List<BookingInterval> findIntervalsByBookingStatusIn(Collection<BookingStatus> bookingStatuses);
+
+    // export: rows are streamed from the server one at a time and are never managed entities,
+    // must run in a transaction that issues no other statement until the stream is closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.BookingExportRow(" +
+            "b.bookingId, b.checkInDate, b.checkOutDate, b.bookingStatus, b.bookingVoucher, b.stayPrice, " +
+            "c.customerId, CONCAT(c.lastName, ' ', c.firstName), r.roomId, r.roomNumber) " +
+            "FROM Booking b LEFT JOIN b.customer c LEFT JOIN b.room r " +
+            "ORDER BY b.bookingId")
+    Stream<BookingExportRow> streamExportRows();
 }
@@ -0,0 +1,10 @@
+package com.uit.hotelmanagement.repositories;
+
+import com.uit.hotelmanagement.entities.Booking;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    // one batched INSERT for all bookings, generated ids are set back on the entities
+    void batchInsert(List<Booking> bookings);
+}
@@ -0,0 +1,56 @@
+package com.uit.hotelmanagement.repositories;
+
+import com.uit.hotelmanagement.entities.Booking;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+// IDENTITY ids stop Hibernate from batching inserts, so group bookings go through JDBC directly
+@RequiredArgsConstructor
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private static final String INSERT_BOOKING = "INSERT INTO bookings " +
+            "(check_in_date, check_out_date, booking_status, booking_voucher, customer_id, room_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Booking> bookings) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_BOOKING, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        ps.setObject(1, booking.getCheckInDate());
+                        ps.setObject(2, booking.getCheckOutDate());
+                        ps.setString(3, booking.getBookingStatus().name());
+                        ps.setBigDecimal(4, booking.getBookingVoucher());
+                        ps.setInt(5, booking.getCustomer().getCustomerId());
+                        ps.setInt(6, booking.getRoom().getRoomId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            Number bookingId = (Number) keys.get(i).values().iterator().next();
+            bookings.get(i).setBookingId(bookingId.intValue());
+        }
+    }
+}
@@ -4,16 +4,70 @@ import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.Payment;
 import com.uit.hotelmanagement.utils.PaymentMethod;
 import com.uit.hotelmanagement.utils.PaymentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+    // listings read the price snapshot, the graph covers what the booking part of the DTO still shows
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
+    @Query("SELECT p FROM Payment p ORDER BY p.paymentId")
+    List<Payment> findAllForListing();
+
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
     List<Payment> findByPaymentDate(LocalDate paymentDate);
+
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
     List<Payment> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
     List<Payment> findByPaymentMethod(PaymentMethod paymentMethod);
+
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
     List<Payment> findByPaymentStatus(PaymentStatus paymentStatus);
+
     Payment findByBooking(Booking booking);
+
+    // held until the rollup is adjusted, two updates of one payment can't both take back its old bucket
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.paymentId = ?1")
+    Optional<Payment> findByIdForUpdate(Integer paymentId);
+
+    // payments taken before the price breakdown was stored
+    @Query("SELECT p.paymentId FROM Payment p WHERE p.bookingPrice IS NULL ORDER BY p.paymentId")
+    List<Integer> findUnpricedIds();
+
+    @Query("SELECT MIN(p.paymentDate) FROM Payment p")
+    LocalDate findFirstPaymentDate();
+
+    @Query("SELECT MAX(p.paymentDate) FROM Payment p")
+    LocalDate findLastPaymentDate();
+
+    // a rollup chunk locks its payments before touching the rollups, the order the payment writes use too
+    @Query(value = "SELECT p.payment_id FROM payments p WHERE p.payment_date BETWEEN ?1 AND ?2 FOR UPDATE",
+            nativeQuery = true)
+    List<Integer> lockIdsByPaymentDateBetween(LocalDate fromDate, LocalDate toDate);
+
+    // keyset pages: ids first so the LIMIT isn't applied in memory to the booking's service usages
+    @Query("SELECT p.paymentId FROM Payment p WHERE p.paymentId > ?1 ORDER BY p.paymentId")
+    List<Integer> findIdsAfter(Integer cursor, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"booking", "booking.customer", "booking.room",
+            "booking.serviceUsages", "booking.serviceUsages.service"})
+    @Query("SELECT p FROM Payment p WHERE p.paymentId IN ?1 ORDER BY p.paymentId")
+    List<Payment> findForListingByPaymentIdIn(Collection<Integer> paymentIds);
 }
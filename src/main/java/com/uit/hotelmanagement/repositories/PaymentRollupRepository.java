@@ -0,0 +1,69 @@
+package com.uit.hotelmanagement.repositories;
+
+import com.uit.hotelmanagement.entities.PaymentRollup;
+import com.uit.hotelmanagement.utils.records.RevenueRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup, Integer> {
+    // one atomic statement on the bucket's unique key, concurrent payments of a bucket can't lose an update
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payment_daily_rollups (payment_date, payment_method, payment_status, payment_count, amount_sum) " +
+            "VALUES (:paymentDate, :paymentMethod, :paymentStatus, :countDelta, :amountDelta) " +
+            "ON DUPLICATE KEY UPDATE payment_count = payment_count + :countDelta, amount_sum = amount_sum + :amountDelta",
+            nativeQuery = true)
+    int addToBucket(@Param("paymentDate") LocalDate paymentDate,
+                    @Param("paymentMethod") String paymentMethod,
+                    @Param("paymentStatus") String paymentStatus,
+                    @Param("countDelta") long countDelta,
+                    @Param("amountDelta") BigDecimal amountDelta);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM payment_daily_rollups WHERE payment_date BETWEEN :fromDate AND :toDate",
+            nativeQuery = true)
+    int deleteBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // recounted from the payments themselves, the scanned payments stay locked until the chunk commits
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payment_daily_rollups (payment_date, payment_method, payment_status, payment_count, amount_sum) " +
+            "SELECT p.payment_date, p.payment_method, p.payment_status, COUNT(*), COALESCE(SUM(p.amount), 0) " +
+            "FROM payments p WHERE p.payment_date BETWEEN :fromDate AND :toDate " +
+            "GROUP BY p.payment_date, p.payment_method, p.payment_status",
+            nativeQuery = true)
+    int insertRecountedBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // equals the number of payments once every payment is counted in its bucket
+    @Query("SELECT COALESCE(SUM(r.paymentCount), 0) FROM PaymentRollup r")
+    long sumPaymentCounts();
+
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.RevenueRow(r.paymentDate, r.paymentMethod, r.paymentStatus, " +
+            "r.paymentCount, r.amountSum) FROM PaymentRollup r " +
+            "WHERE r.paymentDate BETWEEN :fromDate AND :toDate AND r.paymentCount > 0 " +
+            "ORDER BY r.paymentDate, r.paymentMethod, r.paymentStatus")
+    List<RevenueRow> findRowsBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.RevenueRow(r.paymentDate, SUM(r.paymentCount), SUM(r.amountSum)) " +
+            "FROM PaymentRollup r WHERE r.paymentDate BETWEEN :fromDate AND :toDate " +
+            "GROUP BY r.paymentDate HAVING SUM(r.paymentCount) > 0 ORDER BY r.paymentDate")
+    List<RevenueRow> sumByDayBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.RevenueRow(r.paymentMethod, SUM(r.paymentCount), SUM(r.amountSum)) " +
+            "FROM PaymentRollup r WHERE r.paymentDate BETWEEN :fromDate AND :toDate " +
+            "GROUP BY r.paymentMethod HAVING SUM(r.paymentCount) > 0 ORDER BY r.paymentMethod")
+    List<RevenueRow> sumByPaymentMethodBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.RevenueRow(r.paymentStatus, SUM(r.paymentCount), SUM(r.amountSum)) " +
+            "FROM PaymentRollup r WHERE r.paymentDate BETWEEN :fromDate AND :toDate " +
+            "GROUP BY r.paymentStatus HAVING SUM(r.paymentCount) > 0 ORDER BY r.paymentStatus")
+    List<RevenueRow> sumByPaymentStatusBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
@@ -0,0 +1,15 @@
+package com.uit.hotelmanagement.repositories;
+
+import com.uit.hotelmanagement.entities.Payment;
+import com.uit.hotelmanagement.entities.PaymentRoomCharge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PaymentRoomChargeRepository extends JpaRepository<PaymentRoomCharge, Integer> {
+    // the charges of a whole listing in one statement
+    @Query("SELECT c FROM PaymentRoomCharge c WHERE c.payment IN ?1 ORDER BY c.payment.paymentId, c.fromDate")
+    List<PaymentRoomCharge> findByPaymentIn(Collection<Payment> payments);
+}
@@ -2,13 +2,28 @@ package com.uit.hotelmanagement.repositories;
 
 import com.uit.hotelmanagement.entities.Photo;
 import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.utils.records.PhotoNameRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PhotoRepository extends JpaRepository<Photo, Integer> {
     List<Photo> findByRoom(Room room);
-    Optional<Photo> findByName(String name);
+    // with deduplication several rows can name the same blob
+    Optional<Photo> findFirstByName(String name);
+    boolean existsByName(String name);
+
+    @Query("SELECT DISTINCT p.name FROM Photo p WHERE p.name IN :names")
+    List<String> findNamesIn(@Param("names") Collection<String> names);
+
+    // keyset page: WHERE photoId > cursor ORDER BY photoId LIMIT n, without loading the rooms
+    @Query("SELECT new com.uit.hotelmanagement.utils.records.PhotoNameRow(p.photoId, p.name) FROM Photo p " +
+            "WHERE p.photoId > :cursor ORDER BY p.photoId")
+    List<PhotoNameRow> findNamesAfter(@Param("cursor") Integer cursor, Pageable pageable);
 }
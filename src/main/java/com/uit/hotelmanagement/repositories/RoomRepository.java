@@ -1,21 +1,67 @@
 package com.uit.hotelmanagement.repositories;
 
 import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.utils.BookingStatus;
 import com.uit.hotelmanagement.utils.RoomStatus;
 import com.uit.hotelmanagement.utils.RoomType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<Room, Integer> {
+    // SELECT ... FOR UPDATE, the row lock is held until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.roomId = ?1")
+    Optional<Room> findByIdForUpdate(Integer roomId);
+
+    // ordered by id so concurrent group reservations lock rows in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.roomId IN ?1 ORDER BY r.roomId")
+    List<Room> findAllByIdForUpdate(Collection<Integer> roomIds);
+
+    List<Room> findByRoomTypeInOrderByRoomId(Collection<RoomType> roomTypes);
+
+    // room with its photos in one query, for the catalog cache
+    @EntityGraph(attributePaths = {"photos"})
+    Optional<Room> findWithPhotosByRoomId(Integer roomId);
+
     Optional<Room> findByRoomNumber(String roomNumber);
     Optional<List<Room>> findByRoomType(RoomType roomType);
     @Query("SELECT r FROM Room r WHERE r.price >= :min AND r.price <= :max")
     List<Room> findByPriceBetween(@Param("min") BigDecimal minPrice, @Param("max") BigDecimal maxPrice);
     Optional<List<Room>> findByRoomStatus(RoomStatus roomStatus);
+
+    // candidates for the free room search, photos are fetched in the same query for roomToDTO
+    @Query("SELECT DISTINCT r FROM Room r LEFT JOIN FETCH r.photos " +
+            "WHERE (:roomType IS NULL OR r.roomType = :roomType) " +
+            "AND (:min IS NULL OR r.price >= :min) " +
+            "AND (:max IS NULL OR r.price <= :max)")
+    List<Room> findByRoomTypeAndPriceBand(@Param("roomType") RoomType roomType,
+                                          @Param("min") BigDecimal minPrice,
+                                          @Param("max") BigDecimal maxPrice);
+
+    // set-based overlap check, used while the availability index is cold
+    @Query("SELECT DISTINCT r FROM Room r LEFT JOIN FETCH r.photos " +
+            "WHERE (:roomType IS NULL OR r.roomType = :roomType) " +
+            "AND (:min IS NULL OR r.price >= :min) " +
+            "AND (:max IS NULL OR r.price <= :max) " +
+            "AND NOT EXISTS (SELECT b FROM Booking b WHERE b.room = r " +
+            "AND b.bookingStatus IN :statuses " +
+            "AND b.checkInDate < :checkOut AND b.checkOutDate > :checkIn)")
+    List<Room> findAvailableRooms(@Param("roomType") RoomType roomType,
+                                  @Param("min") BigDecimal minPrice,
+                                  @Param("max") BigDecimal maxPrice,
+                                  @Param("statuses") Collection<BookingStatus> bookingStatuses,
+                                  @Param("checkIn") LocalDate checkInDate,
+                                  @Param("checkOut") LocalDate checkOutDate);
 }
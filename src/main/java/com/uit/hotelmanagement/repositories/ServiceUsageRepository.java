@@ -3,6 +3,8 @@ package com.uit.hotelmanagement.repositories;
 import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.Service;
 import com.uit.hotelmanagement.entities.ServiceUsage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.math.BigDecimal;
@@ -17,4 +19,8 @@ public interface ServiceUsageRepository extends JpaRepository<ServiceUsage, Inte
     List<ServiceUsage> findByTotalPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
     List<ServiceUsage> findByService(Service service);
     List<ServiceUsage> findByBooking(Booking booking);
+
+    // keyset page: WHERE serviceUsageId > cursor ORDER BY serviceUsageId LIMIT n, no count query
+    @EntityGraph(attributePaths = {"service"})
+    List<ServiceUsage> findByServiceUsageIdGreaterThanOrderByServiceUsageId(Integer cursor, Pageable pageable);
 }
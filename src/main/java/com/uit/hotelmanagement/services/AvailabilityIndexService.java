@@ -0,0 +1,21 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.utils.BookingStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AvailabilityIndexService {
+    // only these statuses block a room
+    List<BookingStatus> BLOCKING_STATUSES = List.of(BookingStatus.CONFIRMED, BookingStatus.CHECKED_IN);
+
+    void loadIndex();
+    boolean isWarm();
+    // Get
+    boolean isRoomAvailable(Integer roomId, LocalDate checkInDate, LocalDate checkOutDate);
+    // Features
+    void syncBooking(Booking booking);
+    void removeBooking(Integer bookingId);
+    void removeRoom(Integer roomId);
+}
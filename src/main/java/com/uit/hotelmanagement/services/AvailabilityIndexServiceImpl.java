@@ -0,0 +1,126 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.utils.IntervalTree;
+import com.uit.hotelmanagement.utils.records.BookingInterval;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+@RequiredArgsConstructor
+public class AvailabilityIndexServiceImpl implements AvailabilityIndexService {
+    private final BookingRepository bookingRepository;
+
+    // roomId -> interval tree of the room's blocking bookings
+    private final Map<Integer, IntervalTree> roomTrees = new HashMap<>();
+    // bookingId -> interval currently stored, needed to find the node again on update/remove
+    private final Map<Integer, BookingInterval> indexedBookings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean warm = false;
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        // hold the write lock for the whole load so updates made meanwhile are applied after the snapshot
+        lock.writeLock().lock();
+        try {
+            roomTrees.clear();
+            indexedBookings.clear();
+
+            bookingRepository.findIntervalsByBookingStatusIn(BLOCKING_STATUSES).forEach(this::put);
+
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+
+    @Override
+    public boolean isRoomAvailable(Integer roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        lock.readLock().lock();
+        try {
+            IntervalTree tree = roomTrees.get(roomId);
+
+            return tree == null || !tree.overlaps((int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void syncBooking(Booking booking) {
+        lock.writeLock().lock();
+        try {
+            remove(booking.getBookingId());
+
+            if (BLOCKING_STATUSES.contains(booking.getBookingStatus())) {
+                put(new BookingInterval(booking.getBookingId(), booking.getRoom().getRoomId(),
+                        booking.getCheckInDate(), booking.getCheckOutDate(), booking.getBookingStatus()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeBooking(Integer bookingId) {
+        lock.writeLock().lock();
+        try {
+            remove(bookingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeRoom(Integer roomId) {
+        lock.writeLock().lock();
+        try {
+            roomTrees.remove(roomId);
+            indexedBookings.values().removeIf(interval -> interval.roomId().equals(roomId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // utils, callers must hold the write lock
+    private void put(BookingInterval interval) {
+        roomTrees.computeIfAbsent(interval.roomId(), roomId -> new IntervalTree())
+                .insert((int) interval.checkInDate().toEpochDay(),
+                        (int) interval.checkOutDate().toEpochDay(),
+                        interval.bookingId());
+
+        indexedBookings.put(interval.bookingId(), interval);
+    }
+
+    private void remove(Integer bookingId) {
+        BookingInterval interval = indexedBookings.remove(bookingId);
+
+        if (interval == null) {
+            return;
+        }
+
+        IntervalTree tree = roomTrees.get(interval.roomId());
+        if (tree != null) {
+            tree.remove((int) interval.checkInDate().toEpochDay(), interval.bookingId());
+
+            if (tree.isEmpty()) {
+                roomTrees.remove(interval.roomId());
+            }
+        }
+    }
+}
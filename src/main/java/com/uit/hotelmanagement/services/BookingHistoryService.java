@@ -2,6 +2,7 @@ package com.uit.hotelmanagement.services;
 
 import com.uit.hotelmanagement.dtos.BookingHistoryDTO;
 import com.uit.hotelmanagement.entities.BookingHistory;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -10,6 +11,7 @@ import java.util.Map;
 public interface BookingHistoryService {
     // Get
     List<BookingHistoryDTO> getAllBookingHistories();
+    CursorPageResponse<BookingHistoryDTO> getAllBookingHistoriesWithCursor(String cursor, Integer pageSize, Boolean skipCount);
     BookingHistoryDTO getBookingHistoryById(Integer bookHistoryId);
     List<BookingHistoryDTO> getAllBookingHistoriesByActualCheckInDate(String checkInDate);
     List<BookingHistoryDTO> getAllBookingHistoriesByActualCheckOutDate(String checkOutDate);
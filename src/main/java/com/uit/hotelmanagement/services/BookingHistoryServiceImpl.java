@@ -8,10 +8,12 @@ import com.uit.hotelmanagement.exceptions.BookingStatusException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import com.uit.hotelmanagement.repositories.BookingHistoryRepository;
 import com.uit.hotelmanagement.repositories.BookingRepository;
-import com.uit.hotelmanagement.repositories.RoomRepository;
 import com.uit.hotelmanagement.utils.HistoryType;
+import com.uit.hotelmanagement.utils.PageCursor;
 import com.uit.hotelmanagement.utils.UtilityMethods;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -24,7 +26,7 @@ import java.util.stream.Collectors;
 public class BookingHistoryServiceImpl implements BookingHistoryService{
     private final BookingHistoryRepository bookingHistoryRepository;
     private final BookingRepository bookingRepository;
-    private final RoomRepository roomRepository;
+    private final CatalogCacheService catalogCacheService;
     private HistoryType setHistoryType(String index) {
         if (Integer.parseInt(index) < 1 || Integer.parseInt(index) > 5) {
             throw new ResourceNotFoundException("History type", "index", index);
@@ -43,6 +45,28 @@ public class BookingHistoryServiceImpl implements BookingHistoryService{
         return bookingHistoryRepository.findAll().stream().map(this::bookingHistoryToDTO).collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPageResponse<BookingHistoryDTO> getAllBookingHistoriesWithCursor(String cursor, Integer pageSize, Boolean skipCount) {
+        int size = PageCursor.pageSize(pageSize);
+
+        // one extra row tells whether there is a next page
+        List<BookingHistory> bookingHistories = bookingHistoryRepository.findByBookHistoryIdGreaterThanOrderByBookHistoryId(
+                PageCursor.decode(cursor), PageRequest.of(0, size + 1));
+
+        boolean isLast = bookingHistories.size() <= size;
+        if (!isLast) {
+            bookingHistories = bookingHistories.subList(0, size);
+        }
+
+        return CursorPageResponse.<BookingHistoryDTO>builder()
+                .content(bookingHistories.stream().map(this::bookingHistoryToDTO).collect(Collectors.toList()))
+                .pageSize(size)
+                .nextCursor(isLast ? null : PageCursor.encode(bookingHistories.getLast().getBookHistoryId()))
+                .isLast(isLast)
+                .totalElements(skipCount ? null : bookingHistoryRepository.count())
+                .build();
+    }
+
     @Override
     public BookingHistoryDTO getBookingHistoryById(Integer bookHistoryId) {
         BookingHistory existingBookingHistory = bookingHistoryRepository.findById(bookHistoryId)
@@ -99,7 +123,7 @@ public class BookingHistoryServiceImpl implements BookingHistoryService{
 
     @Override
     public List<BookingHistoryDTO> getAllBookingHistoriesByRoom(Integer roomId) {
-        Room existingRoom = roomRepository.findById(roomId)
+        Room existingRoom = catalogCacheService.findRoomById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
         return bookingHistoryRepository.findByRoom(existingRoom).stream().map(this::bookingHistoryToDTO).collect(Collectors.toList());
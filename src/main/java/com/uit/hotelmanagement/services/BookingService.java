@@ -3,9 +3,12 @@ package com.uit.hotelmanagement.services;
 import com.uit.hotelmanagement.dtos.BookingDTO;
 import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.BookingHistory;
+import com.uit.hotelmanagement.entities.StaySegment;
 import com.uit.hotelmanagement.utils.records.ChangeRoomRequest;
 import com.uit.hotelmanagement.utils.records.CheckInRequest;
 import com.uit.hotelmanagement.utils.records.CheckOutOrExtendRequest;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
+import com.uit.hotelmanagement.utils.records.GroupReservationRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -14,8 +17,10 @@ import java.util.Map;
 public interface BookingService {
     // Post
     BookingDTO reserveRoom(Integer customerId, Integer roomId, BookingDTO bookingDTO);
+    List<BookingDTO> reserveRooms(Integer customerId, GroupReservationRequest groupReservationRequest);
     // Get
     List<BookingDTO> getAllBookings();
+    CursorPageResponse<BookingDTO> getAllBookingsWithCursor(String cursor, Integer pageSize, Boolean skipCount);
     BookingDTO getBookingById(Integer bookingId);
     List<BookingDTO> getAllBookingsByCheckInDate(String checkInDate);
     List<BookingDTO> getAllBookingsByCheckOutDate(String checkOutDate);
@@ -23,6 +28,8 @@ public interface BookingService {
     List<BookingDTO> getAllBookingsByCustomer(Integer customerId);
     List<BookingDTO> getAllBookingsByRoom(Integer roomId);
     BigDecimal finalTotalPrice(Integer bookingId);
+    BigDecimal finalTotalPrice(Booking booking);
+    List<StaySegment> pricedSegments(Booking booking);
     // Put
     BookingDTO updateBooking(Integer bookingId, Integer roomId, BookingDTO bookingDTO);// change room NO change customer
     BookingDTO checkIn(Integer bookingId, CheckInRequest checkInRequest);
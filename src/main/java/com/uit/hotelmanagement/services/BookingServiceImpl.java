@@ -5,6 +5,7 @@ import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.BookingHistory;
 import com.uit.hotelmanagement.entities.Customer;
 import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.entities.StaySegment;
 import com.uit.hotelmanagement.exceptions.BookingStatusException;
 import com.uit.hotelmanagement.exceptions.CustomLocalDateException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
@@ -15,32 +16,56 @@ import com.uit.hotelmanagement.repositories.CustomerRepository;
 import com.uit.hotelmanagement.repositories.RoomRepository;
 import com.uit.hotelmanagement.utils.BookingStatus;
 import com.uit.hotelmanagement.utils.HistoryType;
+import com.uit.hotelmanagement.utils.IntervalTree;
+import com.uit.hotelmanagement.utils.PageCursor;
 import com.uit.hotelmanagement.utils.RoomStatus;
+import com.uit.hotelmanagement.utils.RoomType;
+import com.uit.hotelmanagement.utils.StripedLock;
 import com.uit.hotelmanagement.utils.UtilityMethods;
 import com.uit.hotelmanagement.utils.records.ChangeRoomRequest;
 import com.uit.hotelmanagement.utils.records.CheckInRequest;
 import com.uit.hotelmanagement.utils.records.CheckOutOrExtendRequest;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
+import com.uit.hotelmanagement.utils.records.GroupReservationItem;
+import com.uit.hotelmanagement.utils.records.GroupReservationRequest;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService{
+    private static final Set<BookingStatus> STARTED_STATUSES = EnumSet.of(BookingStatus.CHECKED_IN, BookingStatus.CHECKED_OUT);
 
     private final CustomerRepository customerRepository;
     private final RoomRepository roomRepository;
     private final BookingRepository bookingRepository;
     private final BookingHistoryRepository bookingHistoryRepository;
     private final ServiceUsageService sus;
+    private final AvailabilityIndexService availabilityIndexService;
+    private final OccupancyCalendarService occupancyCalendarService;
+    private final CatalogCacheService catalogCacheService;
+    private final TransactionTemplate transactionTemplate;
+    // per-room locks, reservations for different rooms never wait for each other
+    private final StripedLock roomLocks = new StripedLock(256);
     private BookingStatus setBookingStatus(String index) {
         if (Integer.parseInt(index) < 1 || Integer.parseInt(index) > 4) {
             throw new ResourceNotFoundException("Booking status", "bookingStatus", index);
@@ -57,48 +82,237 @@ public class BookingServiceImpl implements BookingService{
 // Post
     @Override
     public BookingDTO reserveRoom(Integer customerId, Integer roomId, BookingDTO bookingDTO) {
+        // check checkInDate before checkOutDate
+        UtilityMethods.check_inIsBeforeCheck_out(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
+
+        // only requests for the same room wait for each other, the index is updated before the lock is released
+        Lock roomLock = roomLocks.get(roomId);
+        roomLock.lock();
+        try {
+            Booking savedBooking = transactionTemplate.execute(status -> saveReservation(customerId, roomId, bookingDTO));
+            syncBooking(savedBooking);
+
+            return bookingToDTO(savedBooking);
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    private Booking saveReservation(Integer customerId, Integer roomId, BookingDTO bookingDTO) {
         Customer existingCustomer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "customerId", Integer.toString(customerId)));
 
-        Room existingRoom = roomRepository.findById(roomId)
+        Room existingRoom = roomRepository.findByIdForUpdate(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
-        // check checkInDate before checkOutDate
-        UtilityMethods.check_inIsBeforeCheck_out(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
+        LocalDate checkInDate = UtilityMethods.setLocalDate(bookingDTO.getCheckInDate());
+        LocalDate checkOutDate = UtilityMethods.setLocalDate(bookingDTO.getCheckOutDate());
 
         // kiem tra chong cheo
-        if (!isRoomAvailable(existingRoom, UtilityMethods.setLocalDate(bookingDTO.getCheckInDate()), UtilityMethods.setLocalDate(bookingDTO.getCheckOutDate()))) {
+        if (!isRoomAvailableForUpdate(existingRoom, checkInDate, checkOutDate)) {
             throw new RoomNotAvailableException("Room " + existingRoom.getRoomNumber() + " is not available for the specified dates.");
         }
 
-        // change the RoomStatus of the room booked by the customer
-        List<Booking> checkInBookings = bookingRepository.findByRoomAndBookingStatus(existingRoom, BookingStatus.CHECKED_IN);
-        if (checkInBookings.isEmpty()) {
-            existingRoom.setRoomStatus(RoomStatus.RESERVED);
-        } else {
+        // change the RoomStatus of the room booked by the customer, a guest staying in it keeps it OCCUPIED
+        if (bookingRepository.existsByRoomAndBookingStatus(existingRoom, BookingStatus.CHECKED_IN)) {
             existingRoom.setRoomStatus(RoomStatus.OCCUPIED);
+        } else {
+            existingRoom.setRoomStatus(RoomStatus.RESERVED);
         }
 
         // set BookingStatus as confirmed
         Booking booking = Booking.builder()
-                .checkInDate(UtilityMethods.setLocalDate(bookingDTO.getCheckInDate()))
-                .checkOutDate(UtilityMethods.setLocalDate(bookingDTO.getCheckOutDate()))
+                .checkInDate(checkInDate)
+                .checkOutDate(checkOutDate)
                 .bookingStatus(BookingStatus.CONFIRMED)
                 .bookingVoucher(new BigDecimal(bookingDTO.getBookingVoucher()))
                 .customer(existingCustomer)
                 .room(existingRoom)
+                .serviceUsages(new ArrayList<>())
                 .build();
 
         roomRepository.save(existingRoom);
-        Booking savedBooking = bookingRepository.save(booking);
+        return bookingRepository.save(booking);
+    }
+
+    @Override
+    public List<BookingDTO> reserveRooms(Integer customerId, GroupReservationRequest groupReservationRequest) {
+        Customer existingCustomer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", "customerId", Integer.toString(customerId)));
 
-        return bookingToDTO(savedBooking);
+        // rooms the group may use: the requested ones and every room of a requested type
+        Set<Integer> candidateRoomIds = new TreeSet<>();
+        Set<RoomType> roomTypes = EnumSet.noneOf(RoomType.class);
+
+        for (GroupReservationItem item : groupReservationRequest.items()) {
+            UtilityMethods.check_inIsBeforeCheck_out(item.checkInDate(), item.checkOutDate());
+
+            if (item.roomId() != null) {
+                candidateRoomIds.add(item.roomId());
+            } else if (item.roomType() != null && !item.roomType().isBlank()) {
+                roomTypes.add(RoomType.fromIndex(item.roomType()));
+            } else {
+                throw new RoomNotAvailableException("Each room of a group reservation needs a roomId or a room type!");
+            }
+        }
+
+        if (!roomTypes.isEmpty()) {
+            roomRepository.findByRoomTypeInOrderByRoomId(roomTypes)
+                    .forEach(room -> candidateRoomIds.add(room.getRoomId()));
+        }
+
+        // lock every candidate room, stripes come back in a fixed order so two groups can't deadlock
+        List<Lock> locks = roomLocks.getAll(candidateRoomIds);
+        locks.forEach(Lock::lock);
+        try {
+            List<Booking> savedBookings = transactionTemplate.execute(status ->
+                    saveGroupReservation(existingCustomer, groupReservationRequest, candidateRoomIds));
+            savedBookings.forEach(this::syncBooking);
+
+            return savedBookings.stream().map(this::bookingToDTO).collect(Collectors.toList());
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    private List<Booking> saveGroupReservation(Customer customer, GroupReservationRequest groupReservationRequest,
+                                               Set<Integer> candidateRoomIds) {
+        List<GroupReservationItem> items = groupReservationRequest.items();
+
+        BigDecimal voucher = groupReservationRequest.bookingVoucher() == null ?
+                BigDecimal.ZERO : new BigDecimal(groupReservationRequest.bookingVoucher());
+
+        // SELECT ... FOR UPDATE on all candidate rooms at once
+        Map<Integer, Room> rooms = new LinkedHashMap<>();
+        roomRepository.findAllByIdForUpdate(candidateRoomIds).forEach(room -> rooms.put(room.getRoomId(), room));
+
+        LocalDate groupCheckIn = items.stream().map(item -> UtilityMethods.setLocalDate(item.checkInDate()))
+                .min(LocalDate::compareTo).orElseThrow();
+        LocalDate groupCheckOut = items.stream().map(item -> UtilityMethods.setLocalDate(item.checkOutDate()))
+                .max(LocalDate::compareTo).orElseThrow();
+
+        // one set-based query for every booking that could collide, checked in memory afterwards
+        Map<Integer, IntervalTree> roomTrees = new HashMap<>();
+        bookingRepository.findOverlappingIntervals(rooms.keySet(), AvailabilityIndexService.BLOCKING_STATUSES,
+                        groupCheckIn, groupCheckOut)
+                .forEach(interval -> roomTrees.computeIfAbsent(interval.roomId(), roomId -> new IntervalTree())
+                        .insert((int) interval.checkInDate().toEpochDay(),
+                                (int) interval.checkOutDate().toEpochDay(),
+                                interval.bookingId()));
+
+        Booking[] bookings = new Booking[items.size()];
+
+        // requested rooms first so a room type request can't take them
+        for (int i = 0; i < items.size(); i++) {
+            GroupReservationItem item = items.get(i);
+            if (item.roomId() == null) {
+                continue;
+            }
+
+            Room room = rooms.get(item.roomId());
+            if (room == null) {
+                throw new ResourceNotFoundException("Room", "roomId", Integer.toString(item.roomId()));
+            }
+
+            if (!placeInRoom(roomTrees, room, item, i)) {
+                throw new RoomNotAvailableException("Room " + room.getRoomNumber() + " is not available for the specified dates.");
+            }
+
+            bookings[i] = groupBooking(customer, room, item, voucher);
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            GroupReservationItem item = items.get(i);
+            if (item.roomId() != null) {
+                continue;
+            }
+
+            RoomType roomType = RoomType.fromIndex(item.roomType());
+            int itemIndex = i;
+
+            Room room = rooms.values().stream()
+                    .filter(candidate -> candidate.getRoomType() == roomType)
+                    .filter(candidate -> placeInRoom(roomTrees, candidate, item, itemIndex))
+                    .findFirst()
+                    .orElseThrow(() -> new RoomNotAvailableException("No " + roomType + " room is available from " +
+                            item.checkInDate() + " to " + item.checkOutDate() + "."));
+
+            bookings[i] = groupBooking(customer, room, item, voucher);
+        }
+
+        // change the RoomStatus of the booked rooms, one query for the rooms that already have a guest
+        Map<Integer, Room> bookedRooms = new LinkedHashMap<>();
+        Arrays.stream(bookings).forEach(booking -> bookedRooms.put(booking.getRoom().getRoomId(), booking.getRoom()));
+
+        Set<Integer> occupiedRoomIds = new HashSet<>(
+                bookingRepository.findRoomIdsWithBookingStatus(bookedRooms.keySet(), BookingStatus.CHECKED_IN));
+
+        bookedRooms.values().forEach(room -> room.setRoomStatus(
+                occupiedRoomIds.contains(room.getRoomId()) ? RoomStatus.OCCUPIED : RoomStatus.RESERVED));
+
+        roomRepository.saveAll(bookedRooms.values());
+
+        List<Booking> savedBookings = Arrays.asList(bookings);
+        bookingRepository.batchInsert(savedBookings);
+
+        return savedBookings;
+    }
+
+    // reserve the item's nights in the room's tree if they are free, the group's own bookings use negative ids
+    private boolean placeInRoom(Map<Integer, IntervalTree> roomTrees, Room room, GroupReservationItem item, int itemIndex) {
+        int checkIn = (int) UtilityMethods.setLocalDate(item.checkInDate()).toEpochDay();
+        int checkOut = (int) UtilityMethods.setLocalDate(item.checkOutDate()).toEpochDay();
+
+        IntervalTree tree = roomTrees.computeIfAbsent(room.getRoomId(), roomId -> new IntervalTree());
+        if (tree.overlaps(checkIn, checkOut)) {
+            return false;
+        }
+
+        tree.insert(checkIn, checkOut, -(itemIndex + 1));
+        return true;
+    }
+
+    private Booking groupBooking(Customer customer, Room room, GroupReservationItem item, BigDecimal voucher) {
+        return Booking.builder()
+                .checkInDate(UtilityMethods.setLocalDate(item.checkInDate()))
+                .checkOutDate(UtilityMethods.setLocalDate(item.checkOutDate()))
+                .bookingStatus(BookingStatus.CONFIRMED)
+                .bookingVoucher(voucher)
+                .customer(customer)
+                .room(room)
+                .serviceUsages(new ArrayList<>())
+                .build();
     }
 
 // Get
     @Override
     public List<BookingDTO> getAllBookings() {
-        return bookingRepository.findAll().stream().map(this::bookingToDTO).collect(Collectors.toList());
+        return bookingRepository.findAllForListing().stream().map(this::bookingToDTO).collect(Collectors.toList());
+    }
+
+    @Override
+    public CursorPageResponse<BookingDTO> getAllBookingsWithCursor(String cursor, Integer pageSize, Boolean skipCount) {
+        int size = PageCursor.pageSize(pageSize);
+
+        // one extra id tells whether there is a next page
+        List<Integer> bookingIds = bookingRepository.findIdsAfter(PageCursor.decode(cursor), PageRequest.of(0, size + 1));
+
+        boolean isLast = bookingIds.size() <= size;
+        if (!isLast) {
+            bookingIds = bookingIds.subList(0, size);
+        }
+
+        List<BookingDTO> bookingDTOs = bookingIds.isEmpty() ? List.of() :
+                bookingRepository.findForListingByBookingIdIn(bookingIds)
+                        .stream().map(this::bookingToDTO).collect(Collectors.toList());
+
+        return CursorPageResponse.<BookingDTO>builder()
+                .content(bookingDTOs)
+                .pageSize(size)
+                .nextCursor(isLast ? null : PageCursor.encode(bookingIds.getLast()))
+                .isLast(isLast)
+                .totalElements(skipCount ? null : bookingRepository.count())
+                .build();
     }
 
     @Override
@@ -110,19 +324,19 @@ public class BookingServiceImpl implements BookingService{
 
     @Override
     public List<BookingDTO> getAllBookingsByCheckInDate(String checkInDate) {
-        return bookingRepository.findByCheckInDate(UtilityMethods.setLocalDate(checkInDate))
+        return bookingRepository.findForListingByCheckInDate(UtilityMethods.setLocalDate(checkInDate))
                 .stream().map(this::bookingToDTO).collect(Collectors.toList());
     }
 
     @Override
     public List<BookingDTO> getAllBookingsByCheckOutDate(String checkOutDate) {
-        return bookingRepository.findByCheckOutDate(UtilityMethods.setLocalDate(checkOutDate))
+        return bookingRepository.findForListingByCheckOutDate(UtilityMethods.setLocalDate(checkOutDate))
                 .stream().map(this::bookingToDTO).collect(Collectors.toList());
     }
 
     @Override
     public List<BookingDTO> getAllBookingsByBookingStatus(String bookingStatusIndex) {
-        return bookingRepository.findByBookingStatus(setBookingStatus(bookingStatusIndex))
+        return bookingRepository.findForListingByBookingStatus(setBookingStatus(bookingStatusIndex))
                 .stream().map(this::bookingToDTO).collect(Collectors.toList());
     }
 
@@ -131,82 +345,79 @@ public class BookingServiceImpl implements BookingService{
         Customer existingCustomer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "customerId", Integer.toString(customerId)));
 
-        return bookingRepository.findByCustomer(existingCustomer)
+        return bookingRepository.findForListingByCustomer(existingCustomer)
                 .stream().map(this::bookingToDTO).collect(Collectors.toList());
     }
 
     @Override
     public List<BookingDTO> getAllBookingsByRoom(Integer roomId) {
-        Room existingRoom = roomRepository.findById(roomId)
+        Room existingRoom = catalogCacheService.findRoomById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
-        return bookingRepository.findByRoom(existingRoom)
+        return bookingRepository.findForListingByRoom(existingRoom)
                 .stream().map(this::bookingToDTO).collect(Collectors.toList());
     }
     @Override
     public BigDecimal finalTotalPrice(Integer bookingId) {
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
-//        -List bhs : Lấy tất cả history của 1 booking có historyType = CHANGE_ROOM, có changeDate >= checkInDate và sắp xếp theo changeDate
-//        -nếu bhs rỗng -> tính tiền như bth
-//        -nếu != rỗng
-//                -checkInBh: lấy ra record bookingHistory có historyType = CHECK_IN (quy định mỗi booking chỉ có duy nhất 1 record có historyType này)
-//                +khởi tạo biến currentDay = check-in date
-//                +khởi tạo biến currentRoom = checkInBh.getRoom() là room lúc check-in
-//                +khởi tạo biến total = 0
-//                +lăp qua list history:
-//        1.	Lấy giá phòng
-//        2.	Tính số ngày ở between currentDate - changeDate
-//        3.	* and + dồn total
-//        4.	Gán lại currentDate = changeDate
-//        5.	Gán lại currentRoom = bh.getRoom() là phòng sẽ đổi đến ở tiếp theo
-//        6.	Tiếp tục lặp
-//                =>Như vậy lần gán currentRoom cuối là room cuối cùng sẽ ở cho đến khi check-out
-//                +Tính tiền từ ngày đổi lần cuối đến ngày check-out
-//        1.	Tính số ngày ở between currentDate – checkOutDate
-//        2.	* and + dồn total
-
-
-        // get all bookingHistory whose changeDate field is not null
-        List<BookingHistory> bhs = bookingHistoryRepository.findByBookingWithHistoryTypeAndChangeDate(
-                existingBooking, HistoryType.CHANGE_ROOM, existingBooking.getCheckInDate()
-        );
-
-        // if there are no room changes, we will charge as usual
-        if (bhs.isEmpty()) {
-            return existingBooking.notChangeRoomCalculate();
-        }
 
-        // get bookingHistory with historyType = CHECK_IN
-        BookingHistory checkInBh = bookingHistoryRepository.findFirstByBookingAndHistoryType
-                        (existingBooking, HistoryType.CHECK_IN)
-                .orElseThrow(() -> new BookingStatusException("This booking has not been checked-in!"));
-
-        LocalDate currentDate = existingBooking.getCheckInDate();
-        Room currentRoom = checkInBh.getRoom();
-
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        return finalTotalPrice(existingBooking);
+    }
 
-        for (BookingHistory bh : bhs) {
-            BigDecimal roomPrice = currentRoom.getPrice();
+    @Override
+    public BigDecimal finalTotalPrice(Booking booking) {
+        // checked-in bookings carry their stay segments and running total, no history lookups needed
+        if (booking.hasStaySegments()) {
+            return booking.staySegmentsCalculate();
+        }
 
-            long daysInRoom = ChronoUnit.DAYS.between(currentDate, bh.getChangeDate());
+        // a started stay the startup backfill could not give segments, priced from its history without saving
+        if (isStayStarted(booking)) {
+            return booking.staySegmentsCalculate(replayStaySegments(booking));
+        }
 
-            totalPrice = totalPrice.add(roomPrice.multiply(BigDecimal.valueOf(daysInRoom)));
-            // BigDecimal là một lớp bất biến (immutable)
-            // nghĩa là + - * không thay đổi đối tượng gốc mà trả về một đối tượng BigDecimal mới
+        // not checked in yet, charge the booked room for the booked nights
+        return booking.notChangeRoomCalculate();
+    }
 
-            currentDate = bh.getChangeDate();
-            currentRoom = bh.getRoom();
+    // the segments finalTotalPrice charges for, a booking without stored segments gets unsaved ones
+    @Override
+    public List<StaySegment> pricedSegments(Booking booking) {
+        if (booking.hasStaySegments()) {
+            return booking.getStaySegments();
         }
 
-        // charge for the final period up to the check-out date
-        long remainingDays = ChronoUnit.DAYS.between(currentDate, existingBooking.getCheckOutDate());
-        totalPrice = totalPrice.add(currentRoom.getPrice().multiply(BigDecimal.valueOf(remainingDays)));
+        if (isStayStarted(booking)) {
+            return replayStaySegments(booking);
+        }
 
-        BigDecimal voucher = BigDecimal.ONE.subtract(existingBooking.getBookingVoucher());
+        return List.of(StaySegment.builder()
+                .fromDate(booking.getCheckInDate())
+                .toDate(booking.getCheckOutDate())
+                .roomPrice(booking.getRoom().getPrice())
+                .room(booking.getRoom())
+                .build());
+    }
 
-        return totalPrice.multiply(voucher).setScale(2, RoundingMode.HALF_EVEN);
+    // bookings checked in before stay segments existed get them once, before the app serves requests,
+    // so pricing reads never write
+    @PostConstruct
+    public void backfillStaySegments() {
+        List<Integer> bookingIds = bookingRepository.findIdsWithoutStaySegments(STARTED_STATUSES);
+
+        for (Integer bookingId : bookingIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> bookingRepository.findById(bookingId)
+                        .filter(booking -> !booking.hasStaySegments())
+                        .ifPresent(booking -> {
+                            rebuildStaySegments(booking);
+                            bookingRepository.save(booking);
+                        }));
+            } catch (BookingStatusException e) {
+                // room changes without a check-in history, finalTotalPrice keeps reporting it
+            }
+        }
     }
 
 // Put
@@ -221,14 +432,21 @@ public class BookingServiceImpl implements BookingService{
         // check-in date must be before check-out date
         UtilityMethods.check_inIsBeforeCheck_out(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
 
-        // update existingBooking
+        // update existingBooking, the segments are resized while they still describe the old room
         existingBooking.setCheckInDate(UtilityMethods.setLocalDate(bookingDTO.getCheckInDate()));
         existingBooking.setCheckOutDate(UtilityMethods.setLocalDate(bookingDTO.getCheckOutDate()));
         existingBooking.setBookingVoucher(new BigDecimal(bookingDTO.getBookingVoucher()));
+        resizeStaySegments(existingBooking);
+
+        // a guest already staying is charged the new room from today on, like changeRoom does
+        if (existingBooking.hasStaySegments() && !existingRoom.equals(existingBooking.getRoom())) {
+            existingBooking.moveStay(existingRoom, roomChangeDate(existingBooking));
+        }
         existingBooking.setRoom(existingRoom);
 
         // save
         Booking updatedBooking = bookingRepository.save(existingBooking);
+        syncBooking(updatedBooking);
 
         return bookingToDTO(updatedBooking);
     }
@@ -257,6 +475,9 @@ public class BookingServiceImpl implements BookingService{
         existingBooking.getRoom().setRoomStatus(RoomStatus.OCCUPIED);
 //        roomRepository.save(existingBooking.getRoom());
 
+        // price the stay from now on at the room's current price
+        existingBooking.startStay();
+
         // create BookingHistory
         BookingHistory bookingHistory = BookingHistory.builder()
                 .actualCheckInDate(existingBooking.getCheckInDate())
@@ -271,6 +492,7 @@ public class BookingServiceImpl implements BookingService{
         // save Booking and BookingHistory
         Booking updatedBooking = bookingRepository.save(existingBooking);
         bookingHistoryRepository.save(bookingHistory);
+        syncBooking(updatedBooking);
 
         return bookingToDTO(updatedBooking);
     }
@@ -300,6 +522,7 @@ public class BookingServiceImpl implements BookingService{
         if (actualCheckOutDate != null && !actualCheckOutDate.isBlank()) {
             existingBooking.setCheckOutDate(UtilityMethods.setLocalDate(actualCheckOutDate));
         }
+        resizeStaySegments(existingBooking);
 
         // set RoomStatus
         existingBooking.getRoom().setRoomStatus(RoomStatus.DIRTY);
@@ -311,7 +534,7 @@ public class BookingServiceImpl implements BookingService{
                 .historyType(HistoryType.CHECK_OUT)
                 .note((checkOutRequest.note() == null || checkOutRequest.note().isBlank()) ?
                         "Check-out" : checkOutRequest.note())
-                .finalTotalPrice(finalTotalPrice(bookingId))
+                .finalTotalPrice(finalTotalPrice(existingBooking))
                 .booking(existingBooking)
                 .room(existingBooking.getRoom())
                 .build();
@@ -319,6 +542,7 @@ public class BookingServiceImpl implements BookingService{
         // save updatedBooking and BookingHistory
         Booking updatedBooking = bookingRepository.save(existingBooking);
         bookingHistoryRepository.save(bookingHistory);
+        syncBooking(updatedBooking);
 
         BookingDTO bookingDTO = bookingToDTO(updatedBooking);
         bookingDTO.setFinalTotalPrice(bookingHistory.getFinalTotalPrice().toString());
@@ -332,6 +556,26 @@ public class BookingServiceImpl implements BookingService{
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
 
+        // extending competes with reservations for the same room
+        Lock roomLock = roomLocks.get(existingBooking.getRoom().getRoomId());
+        roomLock.lock();
+        try {
+            Booking updatedBooking = transactionTemplate.execute(status -> saveExtendStay(bookingId, extendStayRequest));
+            syncBooking(updatedBooking);
+
+            return bookingToDTO(updatedBooking);
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    private Booking saveExtendStay(Integer bookingId, CheckOutOrExtendRequest extendStayRequest) {
+        Booking existingBooking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
+
+        // lock the room row until the new check-out date is saved
+        roomRepository.findByIdForUpdate(existingBooking.getRoom().getRoomId());
+
         // check bookingStatus equal CHECKED_IN
         if (existingBooking.getBookingStatus() != BookingStatus.CHECKED_IN) {
             throw new BookingStatusException("This booking has not been checked in!");
@@ -356,6 +600,7 @@ public class BookingServiceImpl implements BookingService{
         
         // set new check-out date
         existingBooking.setCheckOutDate(newCheckOutDate);
+        resizeStaySegments(existingBooking);
 
         // create BookingHistory
         BookingHistory bookingHistory = BookingHistory.builder()
@@ -372,18 +617,56 @@ public class BookingServiceImpl implements BookingService{
         Booking updatedBooking = bookingRepository.save(existingBooking);
         bookingHistoryRepository.save(bookingHistory);
 
-        return bookingToDTO(updatedBooking);
+        return updatedBooking;
     }
 
     @Override
     public BookingDTO changeRoom(Integer bookingId, Integer newRoomId, ChangeRoomRequest changeRoomRequest) {
-        // check for an existing booking
+        while (true) {
+            Integer oldRoomId = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)))
+                    .getRoom().getRoomId();
+            // Check for duplicate rooms
+            if (oldRoomId.equals(newRoomId)) {
+                throw new RoomNotAvailableException("The new room must be different from the current room!");
+            }
+
+            // moving competes with reservations for both rooms, stripes in stripe order so opposite moves can't deadlock
+            List<Lock> locks = roomLocks.getAll(List.of(oldRoomId, newRoomId));
+            locks.forEach(Lock::lock);
+            try {
+                Booking updatedBooking = transactionTemplate.execute(status ->
+                        saveChangeRoom(bookingId, oldRoomId, newRoomId, changeRoomRequest));
+                // null when another change moved the booking before the locks were taken, try again from its new room
+                if (updatedBooking == null) {
+                    continue;
+                }
+                syncBooking(updatedBooking);
+
+                return bookingToDTO(updatedBooking);
+            } finally {
+                locks.forEach(Lock::unlock);
+            }
+        }
+    }
+
+    private Booking saveChangeRoom(Integer bookingId, Integer oldRoomId, Integer newRoomId, ChangeRoomRequest changeRoomRequest) {
+        // SELECT ... FOR UPDATE on both rooms at once, in id order
+        Map<Integer, Room> rooms = new HashMap<>();
+        roomRepository.findAllByIdForUpdate(Set.of(oldRoomId, newRoomId)).forEach(room -> rooms.put(room.getRoomId(), room));
+
+        // check for an existing booking, read after the room locks so its room can't change underneath
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
+        if (!existingBooking.getRoom().getRoomId().equals(oldRoomId)) {
+            return null;
+        }
 
         // check for an existing room
-        Room newRoom = roomRepository.findById(newRoomId)
-                .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(newRoomId)));
+        Room newRoom = rooms.get(newRoomId);
+        if (newRoom == null) {
+            throw new ResourceNotFoundException("Room", "roomId", Integer.toString(newRoomId));
+        }
 
         // Check for duplicate rooms
         if (newRoom.equals(existingBooking.getRoom())) {
@@ -421,23 +704,32 @@ public class BookingServiceImpl implements BookingService{
 
         // kiem tra chong cheo
         if (bookingStatus == BookingStatus.CONFIRMED) {
-            if (!isRoomAvailable(newRoom, existingBooking.getCheckInDate(), existingBooking.getCheckOutDate())) {
+            if (!isRoomAvailableForUpdate(newRoom, existingBooking.getCheckInDate(), existingBooking.getCheckOutDate())) {
                 throw new RoomNotAvailableException("Room " + newRoom.getRoomNumber() + " is not available for the specified dates.");
             }
         } else if (bookingStatus == BookingStatus.CHECKED_IN) {
-            if (!isRoomAvailable(newRoom, changeDate, existingBooking.getCheckOutDate())) {
+            if (!isRoomAvailableForUpdate(newRoom, changeDate, existingBooking.getCheckOutDate())) {
                 throw new RoomNotAvailableException("Room " + newRoom.getRoomNumber() + " is not available for the specified dates.");
             }
         }
 
         // update status and save the old room
-        Room oldRoom = existingBooking.getRoom();
+        Room oldRoom = rooms.get(oldRoomId);
         oldRoom.setRoomStatus(RoomStatus.MAINTENANCE);
         roomRepository.save(oldRoom);
+        catalogCacheService.evictRoom(oldRoom.getRoomId());
 
         // set status for THE NEW ROOM: CONFIRMED<->RESERVED or CHECKED_IN<->OCCUPIED
         newRoom.setRoomStatus(bookingStatus == BookingStatus.CONFIRMED ? RoomStatus.RESERVED : RoomStatus.OCCUPIED);
 
+        // a checked-in guest pays the new room's price from the change date
+        if (bookingStatus == BookingStatus.CHECKED_IN) {
+            if (!existingBooking.hasStaySegments()) {
+                rebuildStaySegments(existingBooking);
+            }
+            existingBooking.moveStay(newRoom, changeDate);
+        }
+
         // update booking
         existingBooking.setRoom(newRoom);
 
@@ -459,7 +751,7 @@ public class BookingServiceImpl implements BookingService{
         Booking updatedBooking = bookingRepository.save(existingBooking);
         bookingHistoryRepository.save(bookingHistory);
 
-        return bookingToDTO(updatedBooking);
+        return updatedBooking;
     }
 
     @Override
@@ -498,6 +790,7 @@ public class BookingServiceImpl implements BookingService{
         // save booking and bookingHistory
         Booking updatedBooking = bookingRepository.save(existingBooking);
         bookingHistoryRepository.save(bookingHistory);
+        syncBooking(updatedBooking);
 
         return bookingToDTO(updatedBooking);
     }
@@ -509,12 +802,80 @@ public class BookingServiceImpl implements BookingService{
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
 
         bookingRepository.delete(existingBooking);
+        removeBooking(bookingId);
 
         return Map.of("Message", "Booking with Id " + bookingId + " has been deleted successfully!");
     }
 
     // utils
+    private boolean isStayStarted(Booking booking) {
+        return STARTED_STATUSES.contains(booking.getBookingStatus());
+    }
+
+    // bookings checked in before stay segments existed get them from their history once
+    private void rebuildStaySegments(Booking booking) {
+        booking.replaceStay(replayStaySegments(booking));
+    }
+
+    private List<StaySegment> replayStaySegments(Booking booking) {
+        List<BookingHistory> bhs = bookingHistoryRepository.findByBookingWithHistoryTypeAndChangeDate(
+                booking, HistoryType.CHANGE_ROOM, booking.getCheckInDate()
+        );
+
+        if (bhs.isEmpty()) {
+            return booking.replayStay(booking.getRoom(), bhs);
+        }
+
+        // get bookingHistory with historyType = CHECK_IN
+        BookingHistory checkInBh = bookingHistoryRepository.findFirstByBookingAndHistoryType
+                        (booking, HistoryType.CHECK_IN)
+                .orElseThrow(() -> new BookingStatusException("This booking has not been checked-in!"));
+
+        return booking.replayStay(checkInBh.getRoom(), bhs);
+    }
+
+    // today, kept within the booked nights
+    private LocalDate roomChangeDate(Booking booking) {
+        LocalDate today = LocalDate.now();
+
+        if (today.isBefore(booking.getCheckInDate())) {
+            return booking.getCheckInDate();
+        }
+        if (!today.isBefore(booking.getCheckOutDate())) {
+            return booking.getCheckOutDate().minusDays(1);
+        }
+        return today;
+    }
+
+    // the booking's dates changed, bring its stay segments along
+    private void resizeStaySegments(Booking booking) {
+        if (booking.hasStaySegments()) {
+            booking.resizeStay();
+        } else if (isStayStarted(booking)) {
+            rebuildStaySegments(booking);
+        }
+    }
+
+    // keep the in-memory availability index and occupancy calendar in line with the saved booking
+    private void syncBooking(Booking booking) {
+        availabilityIndexService.syncBooking(booking);
+        occupancyCalendarService.syncBooking(booking);
+        // the room's status may have changed with the booking
+        catalogCacheService.evictRoom(booking.getRoom().getRoomId());
+    }
+
+    private void removeBooking(Integer bookingId) {
+        availabilityIndexService.removeBooking(bookingId);
+        occupancyCalendarService.removeBooking(bookingId);
+    }
+
     private Boolean isRoomAvailable(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        // answer from the in-memory index once it has been loaded
+        if (availabilityIndexService.isWarm()) {
+            return availabilityIndexService.isRoomAvailable(room.getRoomId(), checkInDate, checkOutDate);
+        }
+
+        // index is still cold -> fall back to the database
         // kiem tra chong cheo
         List<Booking> cfBookings = bookingRepository.findByRoomAndBookingStatus(room, BookingStatus.CONFIRMED);
         List<Booking> ciBookings = bookingRepository.findByRoomAndBookingStatus(room, BookingStatus.CHECKED_IN);
@@ -530,6 +891,14 @@ public class BookingServiceImpl implements BookingService{
         return true;
     }
 
+    // must run inside a transaction that holds the room row lock
+    private Boolean isRoomAvailableForUpdate(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        // the index rejects conflicts without a query, the database confirms under the row lock
+        return isRoomAvailable(room, checkInDate, checkOutDate)
+                && !bookingRepository.existsOverlappingBooking(room, AvailabilityIndexService.BLOCKING_STATUSES,
+                checkInDate, checkOutDate);
+    }
+
     @Override
     public BookingDTO bookingToDTO(Booking booking) {
         return BookingDTO.builder()
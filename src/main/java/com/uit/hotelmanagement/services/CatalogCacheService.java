@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.entities.Service;
+import com.uit.hotelmanagement.utils.records.CacheStats;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CatalogCacheService {
+    // read-only snapshots, never modify or save them
+    Optional<Room> findRoomById(Integer roomId);
+    Optional<Service> findServiceById(Integer serviceId);
+
+    void evictRoom(Integer roomId);
+    void evictService(Integer serviceId);
+
+    List<CacheStats> getCacheStats();
+}
@@ -0,0 +1,104 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Photo;
+import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.entities.Service;
+import com.uit.hotelmanagement.repositories.RoomRepository;
+import com.uit.hotelmanagement.repositories.ServiceRepository;
+import com.uit.hotelmanagement.utils.BoundedCache;
+import com.uit.hotelmanagement.utils.records.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@org.springframework.stereotype.Service
+public class CatalogCacheServiceImpl implements CatalogCacheService {
+    private final RoomRepository roomRepository;
+    private final ServiceRepository serviceRepository;
+    private final BoundedCache<Integer, Room> rooms;
+    private final BoundedCache<Integer, Service> services;
+
+    public CatalogCacheServiceImpl(RoomRepository roomRepository, ServiceRepository serviceRepository,
+                                   @Value("${project.cache.maxSize:1000}") int maxSize,
+                                   @Value("${project.cache.ttl:PT10M}") Duration ttl) {
+        this.roomRepository = roomRepository;
+        this.serviceRepository = serviceRepository;
+        this.rooms = new BoundedCache<>("rooms", maxSize, ttl);
+        this.services = new BoundedCache<>("services", maxSize, ttl);
+    }
+
+    @Override
+    public Optional<Room> findRoomById(Integer roomId) {
+        return Optional.ofNullable(rooms.get(roomId, id -> roomRepository.findWithPhotosByRoomId(id)
+                .map(this::roomSnapshot).orElse(null)));
+    }
+
+    @Override
+    public Optional<Service> findServiceById(Integer serviceId) {
+        return Optional.ofNullable(services.get(serviceId, id -> serviceRepository.findById(id)
+                .map(this::serviceSnapshot).orElse(null)));
+    }
+
+    @Override
+    public void evictRoom(Integer roomId) {
+        rooms.invalidate(roomId);
+        afterTransaction(() -> rooms.invalidate(roomId));
+    }
+
+    @Override
+    public void evictService(Integer serviceId) {
+        services.invalidate(serviceId);
+        afterTransaction(() -> services.invalidate(serviceId));
+    }
+
+    @Override
+    public List<CacheStats> getCacheStats() {
+        return List.of(rooms.stats(), services.stats());
+    }
+
+    // evict again once the transaction ends, a reader may have cached the old row before the commit
+    private void afterTransaction(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // copies that no persistence context manages, so no request can change the cached instance by accident
+    private Room roomSnapshot(Room room) {
+        Room snapshot = Room.builder()
+                .roomId(room.getRoomId())
+                .roomNumber(room.getRoomNumber())
+                .roomType(room.getRoomType())
+                .price(room.getPrice())
+                .roomStatus(room.getRoomStatus())
+                .photos(new ArrayList<>())
+                .build();
+
+        room.getPhotos().forEach(photo -> snapshot.getPhotos().add(Photo.builder()
+                .photoId(photo.getPhotoId())
+                .name(photo.getName())
+                .room(snapshot)
+                .build()));
+
+        return snapshot;
+    }
+
+    private Service serviceSnapshot(Service service) {
+        return Service.builder()
+                .serviceId(service.getServiceId())
+                .serviceName(service.getServiceName())
+                .description(service.getDescription())
+                .price(service.getPrice())
+                .build();
+    }
+}
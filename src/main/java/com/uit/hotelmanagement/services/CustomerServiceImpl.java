@@ -17,6 +17,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CustomerServiceImpl implements CustomerService{
     private final CustomerRepository customerRepository;
+    private final AvailabilityIndexService availabilityIndexService;
+    private final OccupancyCalendarService occupancyCalendarService;
     @Override
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
         Customer customer = Customer.builder()
@@ -96,6 +98,11 @@ public class CustomerServiceImpl implements CustomerService{
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "customerId", Integer.toString(customerId)));
 
         customerRepository.delete(existingCustomer);
+        // bookings are removed by cascade, drop them from the availability index and calendar too
+        existingCustomer.getBookings().forEach(booking -> {
+            availabilityIndexService.removeBooking(booking.getBookingId());
+            occupancyCalendarService.removeBooking(booking.getBookingId());
+        });
 
         return Map.of("Message", "Customer with Id " + customerId + " has been deleted successfully!");
     }
@@ -0,0 +1,10 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.ExportFormat;
+
+import java.io.OutputStream;
+
+public interface ExportService {
+    void exportBookings(ExportFormat format, OutputStream outputStream);
+    void exportBookingHistories(ExportFormat format, OutputStream outputStream);
+}
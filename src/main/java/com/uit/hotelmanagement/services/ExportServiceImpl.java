@@ -0,0 +1,54 @@
+package com.uit.hotelmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uit.hotelmanagement.repositories.BookingHistoryRepository;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.utils.ExportFormat;
+import com.uit.hotelmanagement.utils.ExportWriter;
+import com.uit.hotelmanagement.utils.records.BookingExportRow;
+import com.uit.hotelmanagement.utils.records.BookingHistoryExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void exportBookings(ExportFormat format, OutputStream outputStream) {
+        export(format, BookingExportRow.class, bookingRepository::streamExportRows, outputStream);
+    }
+
+    @Override
+    public void exportBookingHistories(ExportFormat format, OutputStream outputStream) {
+        export(format, BookingHistoryExportRow.class, bookingHistoryRepository::streamExportRows, outputStream);
+    }
+
+    // rows go from the JDBC cursor straight to the response, heap use doesn't grow with the table
+    private <T extends Record> void export(ExportFormat format, Class<T> rowType,
+                                           Supplier<Stream<T>> rows, OutputStream outputStream) {
+        // the response is written on an async thread, so the stream needs its own read-only transaction
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            ExportWriter<T> writer = new ExportWriter<>(format, rowType, outputStream, objectMapper);
+
+            try (Stream<T> stream = rows.get()) {
+                stream.forEach(writer::write);
+            }
+
+            writer.flush();
+        });
+    }
+}
@@ -1,13 +1,16 @@
 package com.uit.hotelmanagement.services;
 
+import com.uit.hotelmanagement.utils.PhotoSize;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 
 public interface FileService {
     String uploadFile(MultipartFile file) throws IOException;
+    // stores all files in parallel, a failure removes whatever this call wrote and rethrows
+    List<String> uploadFiles(MultipartFile[] files) throws IOException;
     void deleteFile(String filename) throws IOException;
-    FileInputStream getResourceFile(String filename) throws FileNotFoundException;
+    PhotoFile getPhotoFile(String filename, PhotoSize size);
 }
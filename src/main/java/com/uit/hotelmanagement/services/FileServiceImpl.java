@@ -1,56 +1,315 @@
 package com.uit.hotelmanagement.services;
 
+import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
+import com.uit.hotelmanagement.repositories.PhotoRepository;
+import com.uit.hotelmanagement.utils.PhotoShards;
+import com.uit.hotelmanagement.utils.PhotoSize;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@RequiredArgsConstructor
 public class FileServiceImpl implements FileService{
+    // the extension comes from the uploader, only raster images are served as themselves, html or svg never are
+    private static final Map<String, MediaType> SERVED_TYPES = Map.of(
+            ".jpg", MediaType.IMAGE_JPEG,
+            ".jpeg", MediaType.IMAGE_JPEG,
+            ".png", MediaType.IMAGE_PNG,
+            ".gif", MediaType.IMAGE_GIF,
+            ".webp", MediaType.parseMediaType("image/webp"),
+            ".bmp", MediaType.parseMediaType("image/bmp"));
+
+    private final PhotoCacheService photoCacheService;
+    private final ImageResizeService imageResizeService;
+    private final PhotoRepository photoRepository;
+    // deletes put off until a blob's grace period is over, a restart drops them and leaves the files to the photo gc
+    private final ScheduledExecutorService deferredDeletes =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+
     @Value("${project.photos}")
     private String path;
+    @Value("${project.dedup.enabled:true}")
+    private boolean deduplicate;
+    @Value("${project.dedup.grace:PT10M}")
+    private Duration grace;
     @Override
     public String uploadFile(MultipartFile file) throws IOException {
         if (file != null) {
-            UUID uuid = UUID.randomUUID();
+            return store(file).filename();
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> uploadFiles(MultipartFile[] files) throws IOException {
+        List<StoredUpload> storedUploads = new ArrayList<>();
+        IOException failure = null;
+
+        // one virtual thread per part, each streams its part to disk on its own
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<StoredUpload>> futures = Arrays.stream(files)
+                    .map(file -> executor.submit(() -> store(file)))
+                    .toList();
+
+            // wait for every part, even after a failure, so the cleanup sees all the files that were written
+            for (Future<StoredUpload> future : futures) {
+                try {
+                    storedUploads.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ioException
+                                ? ioException : new IOException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (failure == null) {
+                        failure = new IOException("Upload interrupted", e);
+                    }
+                }
+            }
+        }
+
+        if (failure != null) {
+            discard(storedUploads);
+            throw failure;
+        }
+
+        return storedUploads.stream().map(StoredUpload::filename).toList();
+    }
+
+    // createdFile is null when the upload hit a blob that was already stored
+    private record StoredUpload(String filename, Path createdFile, FileTime createdAt) {
+    }
+
+    private StoredUpload store(MultipartFile file) throws IOException {
+        UUID uuid = UUID.randomUUID();
+
+        String originalFilename = file.getOriginalFilename();
+
+        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
 
-            String originalFilename = file.getOriginalFilename();
+        if (deduplicate) {
+            return storeBlob(file, fileExtension.toLowerCase());
+        }
+
+        String newFilename = uuid + fileExtension;
+
+        Path pathFile = PhotoShards.shardedPath(Paths.get(path), newFilename).toAbsolutePath();
+
+        Files.createDirectories(pathFile.getParent());
+
+        try {
+            // the container moves its temp part file into place when it can, nothing is copied through the heap
+            file.transferTo(pathFile.toFile());
+        } catch (IOException e) {
+            Files.deleteIfExists(pathFile);
+            throw e;
+        }
+
+        return new StoredUpload(newFilename, pathFile, Files.getLastModifiedTime(pathFile));
+    }
+
+    // hash while streaming into a temp file, the digest names the blob so equal uploads share one file
+    private StoredUpload storeBlob(MultipartFile file, String fileExtension) throws IOException {
+        Path directory = Paths.get(path);
+        Files.createDirectories(directory);
+
+        Path temp = Files.createTempFile(directory, "upload-", ".tmp");
 
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        try {
+            MessageDigest digest = sha256();
 
-            String newFilename = uuid + fileExtension;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String newFilename = HexFormat.of().formatHex(digest.digest()) + fileExtension;
+            Path blob = PhotoShards.locate(directory, newFilename);
 
-            String pathFile = path + File.separator + newFilename;
+            if (blob != null) {
+                // already stored, a fresh mtime puts off a release racing with this upload until its row is committed
+                Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+                return new StoredUpload(newFilename, null, null);
+            }
 
-            File f = new File(path);
+            blob = PhotoShards.shardedPath(directory, newFilename);
+            Files.createDirectories(blob.getParent());
+            Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            return new StoredUpload(newFilename, blob, Files.getLastModifiedTime(blob));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 
-            if (!f.exists()) {
-                f.mkdir();
+    // only files this batch created, and only while no other upload has deduplicated onto them since
+    private void discard(List<StoredUpload> storedUploads) {
+        for (StoredUpload storedUpload : storedUploads) {
+            if (storedUpload.createdFile() == null) {
+                continue;
             }
 
-            Files.copy(file.getInputStream(), Paths.get(pathFile));
+            try {
+                if (Files.getLastModifiedTime(storedUpload.createdFile()).equals(storedUpload.createdAt())) {
+                    Files.deleteIfExists(storedUpload.createdFile());
+                }
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+    }
 
-            return newFilename;
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return null;
     }
 
     @Override
     public void deleteFile(String filename) throws IOException {
-        Files.deleteIfExists(Paths.get(path + File.separator + filename));
+        Path directory = Paths.get(path);
+        Path original = PhotoShards.locate(directory, filename);
+
+        // a blob touched within the grace period may belong to an upload that isn't committed yet,
+        // look again once it's over and delete it then unless a row names it by now
+        if (deduplicate && original != null) {
+            Duration remaining = Duration.between(Instant.now(),
+                    Files.getLastModifiedTime(original).toInstant().plus(grace));
+
+            if (remaining.isPositive()) {
+                deferredDeletes.schedule(() -> deleteUnreferenced(filename), remaining.toMillis(), TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+
+        // flat before sharded, a file the migration moves in between is still caught
+        for (PhotoSize size : PhotoSize.values()) {
+            Files.deleteIfExists(directory.resolve(size.fileName(filename)));
+            Files.deleteIfExists(PhotoShards.shardedPath(directory, size.fileName(filename)));
+            photoCacheService.invalidate(size.fileName(filename));
+        }
+    }
+
+    private void deleteUnreferenced(String filename) {
+        if (photoRepository.existsByName(filename)) {
+            return;
+        }
+
+        try {
+            deleteFile(filename);
+        } catch (IOException ignored) {
+            // left for the photo gc
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deferredDeletes.shutdownNow();
     }
 
     @Override
-    public FileInputStream getResourceFile(String filename) throws FileNotFoundException {
-        String pathFile = path + File.separator + filename;
-        return new FileInputStream(pathFile);
+    public PhotoFile getPhotoFile(String filename, PhotoSize size) {
+        return photoCacheService.getPhotoFile(size.fileName(filename), () -> readPhotoFile(filename, size));
+    }
+
+    private PhotoFile readPhotoFile(String filename, PhotoSize size) {
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        // names come from the url, never serve anything outside the photo directory
+        if (!directory.equals(directory.resolve(filename).normalize().getParent())) {
+            throw new ResourceNotFoundException("Photo", "photo name", filename);
+        }
+
+        Path pathFile = PhotoShards.locate(directory, filename);
+        if (pathFile == null) {
+            throw new ResourceNotFoundException("Photo", "photo name", filename);
+        }
+
+        // until the variant is resized the original is served in its place, and a dropped job is queued again
+        Path variant = PhotoShards.locate(directory, size.fileName(filename));
+        boolean resized = variant != null;
+        Path servedFile = resized ? variant : pathFile;
+
+        if (!resized) {
+            imageResizeService.enqueueMissing(filename);
+        }
+
+        try {
+            String eTag = "\"" + eTagOf(servedFile) + "\"";
+
+            MediaType mediaType = mediaTypeOf(filename);
+
+            return new PhotoFile(new FileSystemResource(servedFile), mediaType, eTag, resized);
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("Photo", "photo name", filename);
+        }
+    }
+
+    // a digest name is the content, so it is the tag even though deduplicated uploads keep touching the mtime;
+    // random uuid names are never rewritten, so size and mtime are enough for a strong tag
+    private String eTagOf(Path servedFile) throws IOException {
+        String servedName = servedFile.getFileName().toString();
+        if (isDigestName(servedName)) {
+            return servedName;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(servedFile, BasicFileAttributes.class);
+        return Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis());
+    }
+
+    // 64 hex digits of sha-256 before the extension or the variant suffix
+    private boolean isDigestName(String filename) {
+        if (filename.length() <= 64 || filename.charAt(64) != '.' && filename.charAt(64) != '_') {
+            return false;
+        }
+
+        for (int i = 0; i < 64; i++) {
+            if (!HexFormat.isHexDigit(filename.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // anything outside the allow-list goes out as a download, see FileController
+    private MediaType mediaTypeOf(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String extension = dot < 0 ? "" : filename.substring(dot).toLowerCase();
+
+        return SERVED_TYPES.getOrDefault(extension, MediaType.APPLICATION_OCTET_STREAM);
     }
 }
@@ -0,0 +1,13 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.records.ResizeStats;
+
+public interface ImageResizeService {
+    // queues the thumbnail, medium and large variants of an uploaded photo, never blocks the caller
+    void enqueue(String photoName);
+
+    // a read found a variant missing, queue the photo again unless it is pending or failed recently
+    void enqueueMissing(String photoName);
+
+    ResizeStats getResizeStats();
+}
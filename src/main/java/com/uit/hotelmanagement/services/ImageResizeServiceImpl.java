@@ -0,0 +1,217 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.BoundedCache;
+import com.uit.hotelmanagement.utils.PhotoShards;
+import com.uit.hotelmanagement.utils.PhotoSize;
+import com.uit.hotelmanagement.utils.records.ResizeStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class ImageResizeServiceImpl implements ImageResizeService {
+    // largest first, every variant is scaled down from the one before it
+    private static final List<PhotoSize> VARIANTS = List.of(PhotoSize.LARGE, PhotoSize.MEDIUM, PhotoSize.THUMBNAIL);
+
+    // the rejection handler only gets the runnable back, so the job carries its photo name
+    private record ResizeJob(String photoName, Runnable task) implements Runnable {
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    private final int queueSize;
+    // one job per photo at a time, however often its variants are asked for
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final BoundedCache<String, Boolean> recentFailures;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ImageResizeServiceImpl(@Value("${project.photos}") String path,
+                                  @Value("${project.resize.threads:2}") int threads,
+                                  @Value("${project.resize.queueSize:100}") int queueSize,
+                                  @Value("${project.resize.maxFailures:10000}") int maxFailures,
+                                  @Value("${project.resize.retryAfter:PT10M}") Duration retryAfter) {
+        this.directory = Paths.get(path);
+        this.queueSize = queueSize;
+        this.recentFailures = new BoundedCache<>("resizeFailures", maxFailures, retryAfter);
+        // a full queue drops the job instead of blocking the upload, the next read of a missing variant queues it again
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("photo-resize-", 0).daemon(true).factory(),
+                (job, pool) -> {
+                    discarded.increment();
+                    pending.remove(((ResizeJob) job).photoName());
+                });
+    }
+
+    @Override
+    public void enqueue(String photoName) {
+        if (submit(photoName)) {
+            enqueued.increment();
+        }
+    }
+
+    @Override
+    public void enqueueMissing(String photoName) {
+        if (recentFailures.getIfPresent(photoName) == null && submit(photoName)) {
+            requeued.increment();
+        }
+    }
+
+    @Override
+    public ResizeStats getResizeStats() {
+        return ResizeStats.builder()
+                .threads(executor.getMaximumPoolSize())
+                .activeJobs(executor.getActiveCount())
+                .queuedJobs(executor.getQueue().size())
+                .queueCapacity(queueSize)
+                .enqueuedJobs(enqueued.sum())
+                .requeuedJobs(requeued.sum())
+                .completedJobs(completed.sum())
+                .discardedJobs(discarded.sum())
+                .failedJobs(failed.sum())
+                .recentFailures(recentFailures.size())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private boolean submit(String photoName) {
+        if (!pending.add(photoName)) {
+            return false;
+        }
+
+        executor.execute(new ResizeJob(photoName, () -> {
+            try {
+                if (resize(photoName)) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                    recentFailures.put(photoName, Boolean.TRUE);
+                }
+            } finally {
+                pending.remove(photoName);
+            }
+        }));
+        return true;
+    }
+
+    // false when the variants could not be written, the original is served in their place until a retry works
+    private boolean resize(String photoName) {
+        Path original = PhotoShards.locate(directory, photoName);
+        String format = photoName.substring(photoName.lastIndexOf('.') + 1).toLowerCase();
+
+        // deleted before its turn came, or a deduplicated upload whose variants are already on disk
+        if (original == null
+                || VARIANTS.stream().allMatch(size -> PhotoShards.locate(directory, size.fileName(photoName)) != null)) {
+            return true;
+        }
+
+        try {
+            BufferedImage image = ImageIO.read(original.toFile());
+
+            // a format ImageIO can't decode
+            if (image == null) {
+                return false;
+            }
+
+            for (PhotoSize size : VARIANTS) {
+                image = scale(image, size.getMaxDimension(), format);
+
+                if (!write(image, format, PhotoShards.shardedPath(directory, size.fileName(photoName)))) {
+                    return false;
+                }
+            }
+
+            // the photo was deleted while we were resizing it
+            if (PhotoShards.locate(directory, photoName) == null) {
+                for (PhotoSize size : VARIANTS) {
+                    Files.deleteIfExists(PhotoShards.shardedPath(directory, size.fileName(photoName)));
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            // variants are only moved into place once complete, nothing half written is served
+            return false;
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxDimension, String format) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        // jpeg and bmp writers reject an alpha channel
+        boolean alpha = source.getColorModel().hasAlpha() && !format.equals("jpg") && !format.equals("jpeg")
+                && !format.equals("bmp");
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // halve step by step, a single bilinear pass over a large factor skips most of the source pixels
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+
+            BufferedImage scaled = new BufferedImage(width, height, type);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = scaled;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+
+        return current;
+    }
+
+    // write to a temp file and rename it, so a half written variant is never served
+    private boolean write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(directory, "resize-", ".tmp");
+
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                return false;
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
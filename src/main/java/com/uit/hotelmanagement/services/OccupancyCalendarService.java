@@ -0,0 +1,17 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Booking;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+public interface OccupancyCalendarService {
+    void loadCalendar();
+    // Get
+    Map<Integer, String> getOccupancyRuns(Collection<Integer> roomIds, LocalDate fromDate, Integer days);
+    // Features
+    void syncBooking(Booking booking);
+    void removeBooking(Integer bookingId);
+    void removeRoom(Integer roomId);
+}
@@ -0,0 +1,199 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.exceptions.CustomLocalDateException;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.utils.BookingStatus;
+import com.uit.hotelmanagement.utils.OccupancyCalendar;
+import com.uit.hotelmanagement.utils.records.BookingInterval;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+@RequiredArgsConstructor
+public class OccupancyCalendarServiceImpl implements OccupancyCalendarService {
+    private static final int HORIZON_DAYS = 730;
+    // rebuild the calendar from today once its first night is this far in the past
+    private static final int REANCHOR_AFTER_DAYS = 30;
+
+    private final BookingRepository bookingRepository;
+
+    // roomId -> packed nightly states starting at origin
+    private final Map<Integer, OccupancyCalendar> calendars = new HashMap<>();
+    // roomId -> (bookingId -> interval), the source a room calendar is rendered from
+    private final Map<Integer, Map<Integer, BookingInterval>> roomBookings = new HashMap<>();
+    // bookingId -> roomId
+    private final Map<Integer, Integer> bookingRooms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile LocalDate origin;
+    private volatile boolean warm = false;
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCalendar() {
+        lock.writeLock().lock();
+        try {
+            origin = LocalDate.now();
+            calendars.clear();
+            roomBookings.clear();
+            bookingRooms.clear();
+
+            bookingRepository.findIntervalsByBookingStatusIn(AvailabilityIndexService.BLOCKING_STATUSES)
+                    .forEach(this::put);
+
+            roomBookings.keySet().forEach(this::render);
+
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, String> getOccupancyRuns(Collection<Integer> roomIds, LocalDate fromDate, Integer days) {
+        if (days == null || days < 1) {
+            throw new CustomLocalDateException("The number of days must be at least 1!");
+        }
+
+        if (!warm || ChronoUnit.DAYS.between(origin, LocalDate.now()) >= REANCHOR_AFTER_DAYS) {
+            loadCalendar();
+        }
+
+        lock.readLock().lock();
+        try {
+            int fromNight = (int) ChronoUnit.DAYS.between(origin, fromDate);
+
+            if (fromNight < 0 || fromNight + days > HORIZON_DAYS) {
+                throw new CustomLocalDateException("The requested dates must be between " + origin +
+                        " and " + origin.plusDays(HORIZON_DAYS - 1) + "!");
+            }
+
+            Map<Integer, String> runs = new LinkedHashMap<>();
+
+            for (Integer roomId : roomIds) {
+                OccupancyCalendar calendar = calendars.get(roomId);
+
+                runs.put(roomId, calendar == null ?
+                        OccupancyCalendar.encodeFree(days) : calendar.encode(fromNight, fromNight + days));
+            }
+
+            return runs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void syncBooking(Booking booking) {
+        lock.writeLock().lock();
+        try {
+            // not loaded yet, the load will read this booking from the database
+            if (!warm) {
+                return;
+            }
+
+            Integer oldRoomId = remove(booking.getBookingId());
+
+            put(new BookingInterval(booking.getBookingId(), booking.getRoom().getRoomId(),
+                    booking.getCheckInDate(), booking.getCheckOutDate(), booking.getBookingStatus()));
+
+            if (oldRoomId != null) {
+                render(oldRoomId);
+            }
+            render(booking.getRoom().getRoomId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeBooking(Integer bookingId) {
+        lock.writeLock().lock();
+        try {
+            Integer oldRoomId = remove(bookingId);
+
+            if (oldRoomId != null) {
+                render(oldRoomId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeRoom(Integer roomId) {
+        lock.writeLock().lock();
+        try {
+            Map<Integer, BookingInterval> removed = roomBookings.remove(roomId);
+
+            if (removed != null) {
+                removed.keySet().forEach(bookingRooms::remove);
+            }
+
+            calendars.remove(roomId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // utils, callers must hold the write lock
+    private void put(BookingInterval interval) {
+        // cancelled/checked-out bookings and stays that already ended don't show on the calendar
+        if (!AvailabilityIndexService.BLOCKING_STATUSES.contains(interval.bookingStatus())
+                || !interval.checkOutDate().isAfter(origin)) {
+            return;
+        }
+
+        roomBookings.computeIfAbsent(interval.roomId(), roomId -> new HashMap<>())
+                .put(interval.bookingId(), interval);
+        bookingRooms.put(interval.bookingId(), interval.roomId());
+    }
+
+    private Integer remove(Integer bookingId) {
+        Integer roomId = bookingRooms.remove(bookingId);
+
+        if (roomId != null) {
+            Map<Integer, BookingInterval> bookings = roomBookings.get(roomId);
+            bookings.remove(bookingId);
+
+            if (bookings.isEmpty()) {
+                roomBookings.remove(roomId);
+            }
+        }
+
+        return roomId;
+    }
+
+    // redraw a room from its bookings, overlapping bookings can't be cleared night by night
+    private void render(Integer roomId) {
+        Map<Integer, BookingInterval> bookings = roomBookings.get(roomId);
+
+        if (bookings == null) {
+            calendars.remove(roomId);
+            return;
+        }
+
+        OccupancyCalendar calendar = calendars.computeIfAbsent(roomId, id -> new OccupancyCalendar(HORIZON_DAYS));
+        calendar.clear();
+
+        for (BookingInterval interval : bookings.values()) {
+            int state = interval.bookingStatus() == BookingStatus.CHECKED_IN ?
+                    OccupancyCalendar.OCCUPIED : OccupancyCalendar.RESERVED;
+
+            calendar.mark((int) ChronoUnit.DAYS.between(origin, interval.checkInDate()),
+                    (int) ChronoUnit.DAYS.between(origin, interval.checkOutDate()),
+                    state);
+        }
+    }
+}
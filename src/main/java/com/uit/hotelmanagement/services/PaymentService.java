@@ -1,6 +1,7 @@
 package com.uit.hotelmanagement.services;
 
 import com.uit.hotelmanagement.dtos.PaymentDTO;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import com.uit.hotelmanagement.utils.records.PaymentRequest;
 
 import java.util.List;
@@ -11,6 +12,7 @@ public interface PaymentService {
     PaymentDTO createPayment(Integer bookingId, PaymentRequest paymentRequest);
     // Get
     List<PaymentDTO> getAllPayments();
+    CursorPageResponse<PaymentDTO> getAllPaymentsWithCursor(String cursor, Integer pageSize, Boolean skipCount);
     PaymentDTO getPaymentById(Integer paymentId);
     List<PaymentDTO> getAllPaymentsByPaymentDate(String paymentDate);
     List<PaymentDTO> getAllPaymentsByAmountBetween(String minAmount, String maxAmount);
@@ -19,6 +21,7 @@ public interface PaymentService {
     PaymentDTO getPaymentByBooking(Integer bookingId);
     // Put
     PaymentDTO updatePayment(Integer paymentId, PaymentRequest paymentRequest);
+    PaymentDTO repricePayment(Integer paymentId);
     // Delete
     Map<String, String> deletePayment(Integer paymentId);
 }
@@ -3,17 +3,30 @@ package com.uit.hotelmanagement.services;
 import com.uit.hotelmanagement.dtos.PaymentDTO;
 import com.uit.hotelmanagement.entities.Booking;
 import com.uit.hotelmanagement.entities.Payment;
+import com.uit.hotelmanagement.entities.PaymentRoomCharge;
+import com.uit.hotelmanagement.entities.StaySegment;
+import com.uit.hotelmanagement.exceptions.BookingStatusException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import com.uit.hotelmanagement.repositories.BookingRepository;
 import com.uit.hotelmanagement.repositories.PaymentRepository;
+import com.uit.hotelmanagement.repositories.PaymentRoomChargeRepository;
+import com.uit.hotelmanagement.utils.PageCursor;
 import com.uit.hotelmanagement.utils.PaymentMethod;
 import com.uit.hotelmanagement.utils.PaymentStatus;
 import com.uit.hotelmanagement.utils.UtilityMethods;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import com.uit.hotelmanagement.utils.records.PaymentRequest;
+import com.uit.hotelmanagement.utils.records.RoomCharge;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -21,10 +34,15 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService{
+    private static final int WRITE_ATTEMPTS = 3;
+
     private final BookingService bookingService;
     private final ServiceUsageService sus;
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
+    private final PaymentRoomChargeRepository paymentRoomChargeRepository;
+    private final RevenueReportService revenueReportService;
+    private final TransactionTemplate transactionTemplate;
     private PaymentMethod setPaymentMethod(String index) {
         if (Integer.parseInt(index) < 1 || Integer.parseInt(index) > 2) {
             throw new ResourceNotFoundException("Payment method", "Payment method index", index);
@@ -50,28 +68,54 @@ public class PaymentServiceImpl implements PaymentService{
 
     @Override
     public PaymentDTO createPayment(Integer bookingId, PaymentRequest paymentRequest) {
-        Booking existingBooking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
+        // the payment and its revenue rollup commit together
+        return inTransaction(status -> {
+            Booking existingBooking = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
 
-        Payment newPayment = Payment.builder()
-                .paymentDate(UtilityMethods.setLocalDate(paymentRequest.paymentDate()))
-                .paymentMethod(setPaymentMethod(paymentRequest.paymentMethod()))
-                .paymentStatus(setPaymentStatus(paymentRequest.paymentStatus()))
-                .booking(existingBooking)
-                .build();
+            Payment newPayment = Payment.builder()
+                    .paymentDate(UtilityMethods.setLocalDate(paymentRequest.paymentDate()))
+                    .paymentMethod(setPaymentMethod(paymentRequest.paymentMethod()))
+                    .paymentStatus(setPaymentStatus(paymentRequest.paymentStatus()))
+                    .booking(existingBooking)
+                    .build();
 
-        BigDecimal bookingPrice = bookingService.finalTotalPrice(bookingId);
-        BigDecimal totalServicePrice = sus.totalServicePriceOfBooking(bookingId);
+            priceSnapshot(newPayment);
 
-        newPayment.setAmount(bookingPrice.add(totalServicePrice));
+            Payment savedPayment = paymentRepository.save(newPayment);
+            revenueReportService.addToRollup(savedPayment, 1);
 
-        Payment savedPayment = paymentRepository.save(newPayment);
-        return paymentToDTO(savedPayment);
+            return paymentToDTO(savedPayment);
+        });
     }
 
     @Override
     public List<PaymentDTO> getAllPayments() {
-        return paymentRepository.findAll().stream().map(this::paymentToDTO).collect(Collectors.toList());
+        return paymentsToDTOs(paymentRepository.findAllForListing());
+    }
+
+    @Override
+    public CursorPageResponse<PaymentDTO> getAllPaymentsWithCursor(String cursor, Integer pageSize, Boolean skipCount) {
+        int size = PageCursor.pageSize(pageSize);
+
+        // one extra id tells whether there is a next page
+        List<Integer> paymentIds = paymentRepository.findIdsAfter(PageCursor.decode(cursor), PageRequest.of(0, size + 1));
+
+        boolean isLast = paymentIds.size() <= size;
+        if (!isLast) {
+            paymentIds = paymentIds.subList(0, size);
+        }
+
+        List<PaymentDTO> paymentDTOs = paymentIds.isEmpty() ? List.of() :
+                paymentsToDTOs(paymentRepository.findForListingByPaymentIdIn(paymentIds));
+
+        return CursorPageResponse.<PaymentDTO>builder()
+                .content(paymentDTOs)
+                .pageSize(size)
+                .nextCursor(isLast ? null : PageCursor.encode(paymentIds.getLast()))
+                .isLast(isLast)
+                .totalElements(skipCount ? null : paymentRepository.count())
+                .build();
     }
 
     @Override
@@ -84,25 +128,25 @@ public class PaymentServiceImpl implements PaymentService{
     @Override
     public List<PaymentDTO> getAllPaymentsByPaymentDate(String paymentDate) {
         List<Payment> payments = paymentRepository.findByPaymentDate(UtilityMethods.setLocalDate(paymentDate));
-        return payments.stream().map(this::paymentToDTO).collect(Collectors.toList());
+        return paymentsToDTOs(payments);
     }
 
     @Override
     public List<PaymentDTO> getAllPaymentsByAmountBetween(String minAmount, String maxAmount) {
         List<Payment> payments = paymentRepository.findByAmountBetween(new BigDecimal(minAmount), new BigDecimal(maxAmount));
-        return payments.stream().map(this::paymentToDTO).collect(Collectors.toList());
+        return paymentsToDTOs(payments);
     }
 
     @Override
     public List<PaymentDTO> getAllPaymentsByPaymentMethod(String paymentMethodIndex) {
         List<Payment> payments = paymentRepository.findByPaymentMethod(setPaymentMethod(paymentMethodIndex));
-        return payments.stream().map(this::paymentToDTO).collect(Collectors.toList());
+        return paymentsToDTOs(payments);
     }
 
     @Override
     public List<PaymentDTO> getAllPaymentsByPaymentStatus(String paymentStatusIndex) {
         List<Payment> payments = paymentRepository.findByPaymentStatus(setPaymentStatus(paymentStatusIndex));
-        return payments.stream().map(this::paymentToDTO).collect(Collectors.toList());
+        return paymentsToDTOs(payments);
     }
 
     @Override
@@ -116,34 +160,143 @@ public class PaymentServiceImpl implements PaymentService{
 
     @Override
     public PaymentDTO updatePayment(Integer paymentId, PaymentRequest paymentRequest) {
-        Payment existingPayment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Payment", "paymentId", Integer.toString(paymentId)));
+        return inTransaction(status -> {
+            Payment existingPayment = paymentRepository.findByIdForUpdate(paymentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payment", "paymentId", Integer.toString(paymentId)));
+
+            // taken out of the bucket it was counted in, then added to the one it lands in
+            revenueReportService.addToRollup(existingPayment, -1);
+
+            existingPayment.setPaymentDate(UtilityMethods.setLocalDate(paymentRequest.paymentDate()));
+            existingPayment.setPaymentStatus(setPaymentStatus(paymentRequest.paymentStatus()));
+            existingPayment.setPaymentMethod(setPaymentMethod(paymentRequest.paymentMethod()));
+
+            priceSnapshot(existingPayment);
 
-        existingPayment.setPaymentDate(UtilityMethods.setLocalDate(paymentRequest.paymentDate()));
-        existingPayment.setPaymentStatus(setPaymentStatus(paymentRequest.paymentStatus()));
-        existingPayment.setPaymentMethod(setPaymentMethod(paymentRequest.paymentMethod()));
+            Payment updatedPayment = paymentRepository.save(existingPayment);
+            revenueReportService.addToRollup(updatedPayment, 1);
 
-        BigDecimal bookingPrice = bookingService.finalTotalPrice(existingPayment.getBooking().getBookingId());
-        BigDecimal totalServicePrice = sus.totalServicePriceOfBooking(existingPayment.getBooking().getBookingId());
+            return paymentToDTO(updatedPayment);
+        });
+    }
+
+    @Override
+    public PaymentDTO repricePayment(Integer paymentId) {
+        return inTransaction(status -> {
+            Payment existingPayment = paymentRepository.findByIdForUpdate(paymentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payment", "paymentId", Integer.toString(paymentId)));
 
-        existingPayment.setAmount(bookingPrice.add(totalServicePrice));
+            revenueReportService.addToRollup(existingPayment, -1);
 
-        Payment updatedPayment = paymentRepository.save(existingPayment);
+            priceSnapshot(existingPayment);
 
-        return paymentToDTO(updatedPayment);
+            Payment repricedPayment = paymentRepository.save(existingPayment);
+            revenueReportService.addToRollup(repricedPayment, 1);
+
+            return paymentToDTO(repricedPayment);
+        });
     }
 
     @Override
     public Map<String, String> deletePayment(Integer paymentId) {
-        Payment existingPayment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Payment", "paymentId", Integer.toString(paymentId)));
+        return inTransaction(status -> {
+            Payment existingPayment = paymentRepository.findByIdForUpdate(paymentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payment", "paymentId", Integer.toString(paymentId)));
 
-        paymentRepository.delete(existingPayment);
+            paymentRepository.delete(existingPayment);
+            revenueReportService.addToRollup(existingPayment, -1);
 
-        return Map.of("Message", "Payment with Id " + paymentId + " has been deleted successfully!");
+            return Map.of("Message", "Payment with Id " + paymentId + " has been deleted successfully!");
+        });
+    }
+
+    // two writes moving payments between the same buckets in opposite order can deadlock on the rollups,
+    // the transaction is rolled back whole, so the loser simply runs again
+    private <T> T inTransaction(TransactionCallback<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // payments taken before the breakdown was stored get it once, before the app serves requests,
+    // so reads never price a booking; the amount they were charged, and counted in the rollups with, is kept
+    @PostConstruct
+    public void backfillPriceBreakdowns() {
+        for (Integer paymentId : paymentRepository.findUnpricedIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> paymentRepository.findByIdForUpdate(paymentId)
+                        .filter(payment -> !payment.isPriced() && payment.getBooking() != null)
+                        .ifPresent(payment -> {
+                            priceBreakdown(payment);
+                            paymentRepository.save(payment);
+                        }));
+            } catch (BookingStatusException e) {
+                // the booking's history can't be priced, repricePayment reports it
+            }
+        }
+    }
+
+    // the price is fixed when the payment is taken or updated, reads serve it back instead of pricing the booking again
+    private void priceSnapshot(Payment payment) {
+        priceBreakdown(payment);
+        payment.setAmount(payment.getBookingPrice().add(payment.getServicePrice()));
+    }
+
+    private void priceBreakdown(Payment payment) {
+        Booking booking = payment.getBooking();
+
+        BigDecimal bookingPrice = bookingService.finalTotalPrice(booking);
+        BigDecimal totalServicePrice = sus.totalServicePriceOfBooking(booking.getBookingId());
+        List<StaySegment> segments = bookingService.pricedSegments(booking);
+
+        if (payment.getRoomCharges() == null) {
+            payment.setRoomCharges(new ArrayList<>());
+        }
+        payment.getRoomCharges().clear();
+
+        BigDecimal roomPrice = BigDecimal.ZERO;
+        for (StaySegment segment : segments) {
+            BigDecimal segmentPrice = segment.calculatePrice();
+            roomPrice = roomPrice.add(segmentPrice);
+
+            payment.getRoomCharges().add(PaymentRoomCharge.builder()
+                    .roomNumber(segment.getRoom().getRoomNumber())
+                    .fromDate(segment.getFromDate())
+                    .toDate(segment.getToDate())
+                    .nightlyPrice(segment.getRoomPrice())
+                    .price(segmentPrice)
+                    .payment(payment)
+                    .build());
+        }
+
+        payment.setRoomPrice(roomPrice);
+        payment.setBookingVoucher(booking.getBookingVoucher());
+        payment.setBookingPrice(bookingPrice);
+        payment.setServicePrice(totalServicePrice);
+    }
+
+    // the room charges of every payment in one statement instead of one per payment
+    private List<PaymentDTO> paymentsToDTOs(List<Payment> payments) {
+        Map<Integer, List<PaymentRoomCharge>> roomCharges = payments.isEmpty() ? Map.of() :
+                paymentRoomChargeRepository.findByPaymentIn(payments).stream()
+                        .collect(Collectors.groupingBy(roomCharge -> roomCharge.getPayment().getPaymentId()));
+
+        return payments.stream()
+                .map(payment -> paymentToDTO(payment, roomCharges.getOrDefault(payment.getPaymentId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     private PaymentDTO paymentToDTO(Payment payment) {
+        return paymentToDTO(payment, payment.isPriced() ? payment.getRoomCharges() : List.of());
+    }
+
+    private PaymentDTO paymentToDTO(Payment payment, List<PaymentRoomCharge> roomCharges) {
         PaymentDTO paymentDTO =  PaymentDTO.builder()
                 .paymentId(payment.getPaymentId())
                 .paymentDate(payment.getPaymentDate().toString())
@@ -153,8 +306,23 @@ public class PaymentServiceImpl implements PaymentService{
                 .bookingDTO(bookingService.bookingToDTO(payment.getBooking()))
                 .build();
 
-        BigDecimal bookingPrice = bookingService.finalTotalPrice(payment.getBooking().getBookingId());
-        paymentDTO.getBookingDTO().setFinalTotalPrice(bookingPrice.toString());
+        // only a payment the startup backfill couldn't price has no breakdown, it shows its amount until repriced
+        if (!payment.isPriced()) {
+            return paymentDTO;
+        }
+
+        paymentDTO.setRoomPrice(payment.getRoomPrice().toString());
+        paymentDTO.setBookingVoucher(payment.getBookingVoucher().toString());
+        paymentDTO.setBookingPrice(payment.getBookingPrice().toString());
+        paymentDTO.setServicePrice(payment.getServicePrice().toString());
+        paymentDTO.setRoomCharges(roomCharges.stream().map(roomCharge -> RoomCharge.builder()
+                .roomNumber(roomCharge.getRoomNumber())
+                .fromDate(roomCharge.getFromDate().toString())
+                .toDate(roomCharge.getToDate().toString())
+                .nightlyPrice(roomCharge.getNightlyPrice().toString())
+                .price(roomCharge.getPrice().toString())
+                .build()).toList());
+        paymentDTO.getBookingDTO().setFinalTotalPrice(payment.getBookingPrice().toString());
 
         return paymentDTO;
     }
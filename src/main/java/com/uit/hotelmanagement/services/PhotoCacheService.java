@@ -0,0 +1,13 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.records.CacheStats;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
+
+import java.util.function.Supplier;
+
+public interface PhotoCacheService {
+    // the cached photo, or the loaded one, buffered off-heap when it fits the budget
+    PhotoFile getPhotoFile(String key, Supplier<PhotoFile> loader);
+    void invalidate(String key);
+    CacheStats getCacheStats();
+}
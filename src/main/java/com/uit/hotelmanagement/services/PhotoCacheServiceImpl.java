@@ -0,0 +1,94 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.ByteBufferResource;
+import com.uit.hotelmanagement.utils.PhotoByteCache;
+import com.uit.hotelmanagement.utils.records.CacheStats;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+@Service
+public class PhotoCacheServiceImpl implements PhotoCacheService {
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final PhotoByteCache photos;
+
+    public PhotoCacheServiceImpl(@Value("${project.photoCache.enabled:false}") boolean enabled,
+                                 @Value("${project.photoCache.maxSize:64MB}") DataSize maxSize,
+                                 @Value("${project.photoCache.maxEntrySize:4MB}") DataSize maxEntrySize) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.photos = new PhotoByteCache("photos", maxSize.toBytes());
+    }
+
+    @Override
+    public PhotoFile getPhotoFile(String key, Supplier<PhotoFile> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        PhotoFile cached = photos.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadEpoch = photos.epoch();
+        PhotoFile photoFile = loader.get();
+
+        // a stand-in original is replaced once its variant exists, only files that never change are kept
+        if (!photoFile.immutable()) {
+            return photoFile;
+        }
+
+        try {
+            long size = photoFile.resource().contentLength();
+            if (size > maxEntryBytes) {
+                return photoFile;
+            }
+
+            PhotoFile buffered = new PhotoFile(
+                    new ByteBufferResource(read(photoFile.resource().getFile().toPath(), size), key),
+                    photoFile.mediaType(), photoFile.eTag(), true);
+
+            photos.put(key, buffered, size, loadEpoch);
+
+            return buffered;
+        } catch (IOException e) {
+            // serve it from disk, the next request tries again
+            return photoFile;
+        }
+    }
+
+    @Override
+    public void invalidate(String key) {
+        if (enabled) {
+            photos.invalidate(key);
+        }
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return photos.stats();
+    }
+
+    // direct buffers live outside the heap, so large cached photos don't add to GC work
+    private ByteBuffer read(Path path, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+        }
+
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,8 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.records.PhotoGcReport;
+
+public interface PhotoGcService {
+    // files no photo row names are deleted or quarantined, rows without a file are only reported
+    PhotoGcReport collectOrphans(boolean dryRun);
+}
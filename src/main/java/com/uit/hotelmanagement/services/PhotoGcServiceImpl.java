@@ -0,0 +1,207 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.repositories.PhotoRepository;
+import com.uit.hotelmanagement.utils.PhotoShards;
+import com.uit.hotelmanagement.utils.PhotoSize;
+import com.uit.hotelmanagement.utils.records.PhotoGcReport;
+import com.uit.hotelmanagement.utils.records.PhotoNameRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+public class PhotoGcServiceImpl implements PhotoGcService {
+    private static final int SAMPLE_SIZE = 100;
+
+    private final PhotoRepository photoRepository;
+    private final PhotoCacheService photoCacheService;
+    private final Path root;
+    private final Path quarantine;
+    private final boolean enabled;
+    private final boolean quarantineOrphans;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public PhotoGcServiceImpl(PhotoRepository photoRepository, PhotoCacheService photoCacheService,
+                              @Value("${project.photos}") String path,
+                              @Value("${project.photoGc.enabled:false}") boolean enabled,
+                              @Value("${project.photoGc.quarantine:true}") boolean quarantineOrphans,
+                              @Value("${project.photoGc.minAge:PT1H}") Duration minAge,
+                              @Value("${project.photoGc.batchSize:500}") int batchSize) {
+        this.photoRepository = photoRepository;
+        this.photoCacheService = photoCacheService;
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+        // not a hex shard name, so neither the migration nor the walk below ever looks inside it
+        this.quarantine = root.resolve("quarantine");
+        this.enabled = enabled;
+        this.quarantineOrphans = quarantineOrphans;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${project.photoGc.cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        if (enabled) {
+            collectOrphans(false);
+        }
+    }
+
+    @Override
+    public PhotoGcReport collectOrphans(boolean dryRun) {
+        Counts files = new Counts();
+        Counts photos = new Counts();
+
+        // a missing directory means an unmounted volume, not that every photo is gone
+        if (Files.isDirectory(root)) {
+            collectOrphanFiles(dryRun, files);
+            findDanglingPhotos(photos);
+        }
+
+        return PhotoGcReport.builder()
+                .dryRun(dryRun)
+                .scannedFiles(files.scanned)
+                .orphanFiles(files.found)
+                .orphanBytes(files.bytes)
+                .sampleOrphanFiles(files.sample)
+                .scannedPhotos(photos.scanned)
+                .danglingPhotos(photos.found)
+                .sampleDanglingPhotos(photos.sample)
+                .build();
+    }
+
+    private static class Counts {
+        private long scanned;
+        private long found;
+        private long bytes;
+        private final List<String> sample = new ArrayList<>();
+
+        private void add(String name, long size) {
+            found++;
+            bytes += size;
+            if (sample.size() < SAMPLE_SIZE) {
+                sample.add(name);
+            }
+        }
+    }
+
+    // the walk is lazy, only one batch of paths and its names are held at a time
+    private void collectOrphanFiles(boolean dryRun, Counts files) {
+        try (Stream<Path> walk = Files.walk(root, 3)) {
+            Iterator<Path> iterator = walk
+                    .filter(file -> !file.startsWith(quarantine))
+                    .filter(Files::isRegularFile)
+                    .iterator();
+
+            List<Path> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    checkFiles(batch, dryRun, files);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // one indexed lookup per batch, a variant belongs to its original's row
+    private void checkFiles(List<Path> batch, boolean dryRun, Counts files) {
+        Instant cutoff = Instant.now().minus(minAge);
+        Map<Path, String> photoNames = new LinkedHashMap<>();
+
+        for (Path file : batch) {
+            files.scanned++;
+
+            // young files may belong to an upload whose row isn't committed yet
+            if (isOlderThan(file, cutoff)) {
+                photoNames.put(file, PhotoSize.originalName(file.getFileName().toString()));
+            }
+        }
+
+        if (photoNames.isEmpty()) {
+            return;
+        }
+
+        Set<String> referenced = new HashSet<>(photoRepository.findNamesIn(new HashSet<>(photoNames.values())));
+
+        photoNames.forEach((file, photoName) -> {
+            // checked again, a deduplicated upload may have reused the blob since
+            if (referenced.contains(photoName) || !isOlderThan(file, cutoff)) {
+                return;
+            }
+
+            try {
+                files.add(root.relativize(file).toString(), Files.size(file));
+
+                if (!dryRun) {
+                    remove(file);
+                }
+            } catch (IOException e) {
+                // removed meanwhile
+            }
+        });
+    }
+
+    private void remove(Path file) throws IOException {
+        String filename = file.getFileName().toString();
+
+        if (quarantineOrphans) {
+            Files.createDirectories(quarantine);
+            Files.move(file, quarantine.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+
+        photoCacheService.invalidate(filename);
+    }
+
+    // rows whose file is missing are reported, the row may still be restored from a backup
+    private void findDanglingPhotos(Counts photos) {
+        int cursor = 0;
+        List<PhotoNameRow> rows;
+
+        do {
+            rows = photoRepository.findNamesAfter(cursor, PageRequest.of(0, batchSize));
+
+            for (PhotoNameRow row : rows) {
+                photos.scanned++;
+
+                if (PhotoShards.locate(root, row.name()) == null) {
+                    photos.add(row.photoId() + ":" + row.name(), 0);
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                cursor = rows.getLast().photoId();
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    private boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.uit.hotelmanagement.services;
+
+public interface PhotoMigrationService {
+    // moves photos from the flat photo directory into their shards, returns how many were moved
+    int migrateToShards();
+}
@@ -0,0 +1,105 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.utils.PhotoShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class PhotoMigrationServiceImpl implements PhotoMigrationService {
+    private final Path root;
+    private final boolean migrateOnStartup;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    public PhotoMigrationServiceImpl(@Value("${project.photos}") String path,
+                                     @Value("${project.shard.migrateOnStartup:true}") boolean migrateOnStartup,
+                                     @Value("${project.shard.batchSize:500}") int batchSize,
+                                     @Value("${project.shard.batchPause:PT0.2S}") Duration batchPause) {
+        this.root = Paths.get(path);
+        this.migrateOnStartup = migrateOnStartup;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    // runs next to the live app, reads fall back to the flat layout until a file is moved
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (migrateOnStartup && Files.isDirectory(root)) {
+            Thread.ofVirtual().name("photo-shard-migration").start(this::migrateToShards);
+        }
+    }
+
+    @Override
+    public int migrateToShards() {
+        int moved = 0;
+
+        while (true) {
+            List<Path> batch = nextBatch();
+
+            int movedInBatch = 0;
+            for (Path file : batch) {
+                if (moveToShard(file)) {
+                    movedInBatch++;
+                }
+            }
+            moved += movedInBatch;
+
+            // done, or only files left that can't be moved
+            if (batch.size() < batchSize || movedInBatch == 0) {
+                return moved;
+            }
+
+            try {
+                Thread.sleep(batchPause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return moved;
+            }
+        }
+    }
+
+    // moved files leave the directory, so every batch simply lists it again
+    private List<Path> nextBatch() {
+        try (Stream<Path> files = Files.list(root)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> PhotoShards.isShardable(file.getFileName().toString()))
+                    .limit(batchSize)
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean moveToShard(Path file) {
+        Path target = PhotoShards.shardedPath(root, file.getFileName().toString());
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            if (Files.exists(target)) {
+                // the same blob was uploaded again since the migration started, it already sits in its shard
+                Files.deleteIfExists(file);
+            } else {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            return true;
+        } catch (IOException e) {
+            // deleted meanwhile, or left for the next run
+            return false;
+        }
+    }
+}
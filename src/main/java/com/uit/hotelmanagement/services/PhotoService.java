@@ -13,6 +13,8 @@ import java.util.Map;
 public interface PhotoService {
     List<Photo> saveAllPhotos(Room room, MultipartFile[] files);
     void deleteAllPhotos(Room room);
+    void replaceAllPhotos(Room room, MultipartFile[] files);
+    void releasePhotoFiles(List<String> photoNames);
     // Post
     List<PhotoDTO> addPhoto(Integer roomId, MultipartFile[] files);
     // Get
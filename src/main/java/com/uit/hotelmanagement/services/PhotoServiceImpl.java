@@ -7,14 +7,16 @@ import com.uit.hotelmanagement.exceptions.FileServiceException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import com.uit.hotelmanagement.repositories.PhotoRepository;
 import com.uit.hotelmanagement.repositories.RoomRepository;
+import com.uit.hotelmanagement.utils.PhotoSize;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -25,6 +27,8 @@ public class PhotoServiceImpl implements PhotoService{
     private final FileService fileService;
     private final PhotoRepository photoRepository;
     private final RoomRepository roomRepository;
+    private final CatalogCacheService catalogCacheService;
+    private final ImageResizeService imageResizeService;
 
     @Value("${base.url}")
     private String baseUrl;
@@ -33,20 +37,25 @@ public class PhotoServiceImpl implements PhotoService{
         List<Photo> photos = new ArrayList<>();
 
         if (files != null) {
-            Arrays.stream(files).forEach(file -> {
-                try {
-                    String photoName = fileService.uploadFile(file);
+            List<String> photoNames;
 
-                    Photo photo = Photo.builder()
-                            .name(photoName)
-                            .room(room)
-                            .build();
+            try {
+                // all parts at once, a failed part leaves none of the others on disk
+                photoNames = fileService.uploadFiles(files);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
 
-                    photos.add(photo);
+            photoNames.forEach(photoName -> {
+                // variants are resized in the background, the upload returns right away
+                imageResizeService.enqueue(photoName);
 
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+                Photo photo = Photo.builder()
+                        .name(photoName)
+                        .room(room)
+                        .build();
+
+                photos.add(photo);
             });
 
             return photoRepository.saveAll(photos);
@@ -58,15 +67,52 @@ public class PhotoServiceImpl implements PhotoService{
     public void deleteAllPhotos(Room room) {
         List<Photo> deletePhotos = photoRepository.findByRoom(room);
 
-        deletePhotos.forEach(photo -> {
+        photoRepository.deleteAll(deletePhotos);
+
+        releasePhotoFiles(deletePhotos.stream().map(Photo::getName).toList());
+    }
+
+    @Override
+    public void replaceAllPhotos(Room room, MultipartFile[] files) {
+        List<Photo> oldPhotos = photoRepository.findByRoom(room);
+
+        // store the new photos first, unchanged ones hash to blobs that are still referenced and are kept
+        saveAllPhotos(room, files);
+
+        photoRepository.deleteAll(oldPhotos);
+
+        releasePhotoFiles(oldPhotos.stream().map(Photo::getName).toList());
+    }
+
+    // blobs are shared by every row with the same name, a file goes away with the last row naming it
+    @Override
+    public void releasePhotoFiles(List<String> photoNames) {
+        List<String> unusedNames = photoNames.stream()
+                .distinct()
+                .filter(photoName -> !photoRepository.existsByName(photoName))
+                .toList();
+
+        afterCommit(() -> unusedNames.forEach(photoName -> {
             try {
-                fileService.deleteFile(photo.getName());
+                fileService.deleteFile(photoName);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }));
+    }
 
-        photoRepository.deleteAll(deletePhotos);
+    // files can't be rolled back, remove them only once the rows are gone for good
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     @Override
@@ -84,6 +130,9 @@ public class PhotoServiceImpl implements PhotoService{
             }
         }
 
+        // the cached room carries its photos
+        catalogCacheService.evictRoom(roomId);
+
         return savedPhotos.stream().map(this::photoToDTO).collect(Collectors.toList());
     }
 
@@ -102,14 +151,14 @@ public class PhotoServiceImpl implements PhotoService{
 
     @Override
     public PhotoDTO getPhotoByPhotoName(String photoName) {
-        Photo existingPhoto = photoRepository.findByName(photoName)
+        Photo existingPhoto = photoRepository.findFirstByName(photoName)
                 .orElseThrow(() -> new ResourceNotFoundException("Photo", "photo name", photoName));
         return photoToDTO(existingPhoto);
     }
 
     @Override
     public List<PhotoDTO> getAllPhotosByRoomId(Integer roomId) {
-        Room existingRoom = roomRepository.findById(roomId)
+        Room existingRoom = catalogCacheService.findRoomById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
         List<Photo> photos = photoRepository.findByRoom(existingRoom);
@@ -122,9 +171,9 @@ public class PhotoServiceImpl implements PhotoService{
         Photo existingPhoto = photoRepository.findById(photoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Photo", "photoId", Integer.toString(photoId)));
 
-        fileService.deleteFile(existingPhoto.getName());
-
         photoRepository.delete(existingPhoto);
+        releasePhotoFiles(List.of(existingPhoto.getName()));
+        catalogCacheService.evictRoom(existingPhoto.getRoom().getRoomId());
 
         return Map.of("Message", "Photo with Id " + photoId + " has been deleted successfully!");
     }
@@ -136,6 +185,13 @@ public class PhotoServiceImpl implements PhotoService{
                 .name(photo.getName())
                 .roomNumber(photo.getRoom().getRoomNumber())
                 .photoUrl(baseUrl + "/file/" + photo.getName())
+                .thumbnailUrl(photoUrl(photo, PhotoSize.THUMBNAIL))
+                .mediumUrl(photoUrl(photo, PhotoSize.MEDIUM))
+                .largeUrl(photoUrl(photo, PhotoSize.LARGE))
                 .build();
     }
+
+    private String photoUrl(Photo photo, PhotoSize size) {
+        return baseUrl + "/file/" + photo.getName() + "?size=" + size.name().toLowerCase();
+    }
 }
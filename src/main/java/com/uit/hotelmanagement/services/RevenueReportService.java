@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Payment;
+import com.uit.hotelmanagement.utils.records.RevenueRow;
+import com.uit.hotelmanagement.utils.records.RollupBackfillReport;
+
+import java.util.List;
+
+public interface RevenueReportService {
+    // adds (sign 1) or takes back (sign -1) a payment in its rollup bucket, runs in the caller's transaction
+    void addToRollup(Payment payment, int sign);
+    // Get
+    List<RevenueRow> getRevenueRollups(String fromDate, String toDate);
+    List<RevenueRow> getDailyRevenue(String fromDate, String toDate);
+    List<RevenueRow> getRevenueByPaymentMethod(String fromDate, String toDate);
+    List<RevenueRow> getRevenueByPaymentStatus(String fromDate, String toDate);
+    // recounts every rollup from the payments, month by month in parallel
+    RollupBackfillReport rebuildRollups();
+}
@@ -0,0 +1,189 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.entities.Payment;
+import com.uit.hotelmanagement.exceptions.CustomLocalDateException;
+import com.uit.hotelmanagement.repositories.PaymentRepository;
+import com.uit.hotelmanagement.repositories.PaymentRollupRepository;
+import com.uit.hotelmanagement.utils.UtilityMethods;
+import com.uit.hotelmanagement.utils.records.RevenueRow;
+import com.uit.hotelmanagement.utils.records.RollupBackfillReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Service
+public class RevenueReportServiceImpl implements RevenueReportService {
+    private static final int CHUNK_ATTEMPTS = 3;
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentRollupRepository paymentRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final int backfillThreads;
+
+    public RevenueReportServiceImpl(PaymentRepository paymentRepository,
+                                    PaymentRollupRepository paymentRollupRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${project.rollup.backfillOnStartup:true}") boolean backfillOnStartup,
+                                    @Value("${project.rollup.backfillThreads:4}") int backfillThreads) {
+        this.paymentRepository = paymentRepository;
+        this.paymentRollupRepository = paymentRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillThreads = backfillThreads;
+    }
+
+    // rebuilds whenever the buckets don't account for every payment, an empty table or a backfill cut short
+    // by a restart shows up the same way, even after payments were written on top of it
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (backfillOnStartup && paymentRollupRepository.sumPaymentCounts() != paymentRepository.count()) {
+            Thread.ofVirtual().name("revenue-rollup-backfill").start(this::rebuildRollups);
+        }
+    }
+
+    @Override
+    public void addToRollup(Payment payment, int sign) {
+        paymentRollupRepository.addToBucket(
+                payment.getPaymentDate(),
+                payment.getPaymentMethod().name(),
+                payment.getPaymentStatus().name(),
+                sign,
+                payment.getAmount().multiply(BigDecimal.valueOf(sign)));
+    }
+
+    @Override
+    public List<RevenueRow> getRevenueRollups(String fromDate, String toDate) {
+        LocalDate from = UtilityMethods.setLocalDate(fromDate);
+        LocalDate to = UtilityMethods.setLocalDate(toDate);
+        checkRange(from, to);
+
+        return paymentRollupRepository.findRowsBetween(from, to);
+    }
+
+    @Override
+    public List<RevenueRow> getDailyRevenue(String fromDate, String toDate) {
+        LocalDate from = UtilityMethods.setLocalDate(fromDate);
+        LocalDate to = UtilityMethods.setLocalDate(toDate);
+        checkRange(from, to);
+
+        return paymentRollupRepository.sumByDayBetween(from, to);
+    }
+
+    @Override
+    public List<RevenueRow> getRevenueByPaymentMethod(String fromDate, String toDate) {
+        LocalDate from = UtilityMethods.setLocalDate(fromDate);
+        LocalDate to = UtilityMethods.setLocalDate(toDate);
+        checkRange(from, to);
+
+        return paymentRollupRepository.sumByPaymentMethodBetween(from, to);
+    }
+
+    @Override
+    public List<RevenueRow> getRevenueByPaymentStatus(String fromDate, String toDate) {
+        LocalDate from = UtilityMethods.setLocalDate(fromDate);
+        LocalDate to = UtilityMethods.setLocalDate(toDate);
+        checkRange(from, to);
+
+        return paymentRollupRepository.sumByPaymentStatusBetween(from, to);
+    }
+
+    // one transaction per month, so a chunk's delete and recount are seen together
+    // and a payment written meanwhile is either counted by the recount or added on top of it
+    @Override
+    public synchronized RollupBackfillReport rebuildRollups() {
+        long startTime = System.nanoTime();
+
+        LocalDate firstDate = paymentRepository.findFirstPaymentDate();
+        LocalDate lastDate = paymentRepository.findLastPaymentDate();
+
+        if (firstDate == null) {
+            return RollupBackfillReport.builder()
+                    .chunks(0)
+                    .payments(0L)
+                    .rollups(0L)
+                    .elapsedMillis((System.nanoTime() - startTime) / 1_000_000)
+                    .build();
+        }
+
+        List<LocalDate[]> chunks = new ArrayList<>();
+        for (LocalDate month = firstDate.withDayOfMonth(1); !month.isAfter(lastDate); month = month.plusMonths(1)) {
+            chunks.add(new LocalDate[]{month, month.with(TemporalAdjusters.lastDayOfMonth())});
+        }
+
+        long payments = 0;
+        long rollups = 0;
+
+        // a few connections at a time, the pool still has to serve the API
+        try (ExecutorService executor = Executors.newFixedThreadPool(backfillThreads,
+                Thread.ofVirtual().name("revenue-rollup-chunk-", 0).factory())) {
+            List<Future<long[]>> results = new ArrayList<>();
+
+            for (LocalDate[] chunk : chunks) {
+                results.add(executor.submit(() -> rebuildChunk(chunk[0], chunk[1])));
+            }
+
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                payments += counts[0];
+                rollups += counts[1];
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the revenue rollups", e);
+        }
+
+        return RollupBackfillReport.builder()
+                .fromDate(firstDate)
+                .toDate(lastDate)
+                .chunks(chunks.size())
+                .payments(payments)
+                .rollups(rollups)
+                .elapsedMillis((System.nanoTime() - startTime) / 1_000_000)
+                .build();
+    }
+
+    // payments first, then rollups, like createPayment and updatePayment, so a chunk and a payment write queue up
+    // instead of deadlocking; neighbouring months still share a gap lock at their border, that loser runs again
+    private long[] rebuildChunk(LocalDate from, LocalDate to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<Integer> paymentIds = paymentRepository.lockIdsByPaymentDateBetween(from, to);
+                    paymentRollupRepository.deleteBetween(from, to);
+                    int inserted = paymentRollupRepository.insertRecountedBetween(from, to);
+                    return new long[]{paymentIds.size(), inserted};
+                });
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new CustomLocalDateException("From date must not be after to date!");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.uit.hotelmanagement.services;
 
 import com.uit.hotelmanagement.dtos.RoomDTO;
+import com.uit.hotelmanagement.utils.records.OccupancyGridResponse;
 import com.uit.hotelmanagement.utils.records.RoomPageResponse;
 import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +21,9 @@ public interface RoomService {
     List<RoomDTO> getAllRoomsByRoomStatus(String roomStatus);
     RoomPageResponse getAllRoomsWithPagination(Integer pageNumber, Integer pageSize);
     RoomPageResponse getAllRoomsWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir);
+    List<RoomDTO> getAllAvailableRooms(String checkInDate, String checkOutDate, String roomType,
+                                       String minPrice, String maxPrice);
+    OccupancyGridResponse getOccupancyGrid(String fromDate, Integer days);
     // Put
     RoomDTO updateRoom(Integer roomId, RoomDTO roomDTO, MultipartFile[] files);
     // Delete
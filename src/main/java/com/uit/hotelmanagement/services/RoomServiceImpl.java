@@ -8,6 +8,9 @@ import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import com.uit.hotelmanagement.repositories.RoomRepository;
 import com.uit.hotelmanagement.utils.RoomStatus;
 import com.uit.hotelmanagement.utils.RoomType;
+import com.uit.hotelmanagement.utils.UtilityMethods;
+import com.uit.hotelmanagement.utils.records.OccupancyGridResponse;
+import com.uit.hotelmanagement.utils.records.RoomOccupancy;
 import com.uit.hotelmanagement.utils.records.RoomPageResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +22,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -30,35 +34,9 @@ import java.util.stream.Collectors;
 public class RoomServiceImpl implements RoomService {
     private final RoomRepository roomRepository;
     private final PhotoService photoService;
-    private RoomType setRoomType(String index) {
-        if (Integer.parseInt(index) < 1 || Integer.parseInt(index) > 6) {
-            throw new ResourceNotFoundException("Room type", "roomType", index);
-        }
-
-        RoomType roomType;
-
-        switch (Integer.parseInt(index)) {
-            case 1:
-                roomType = RoomType.SINGLE;
-                break;
-            case 2:
-                roomType = RoomType.DOUBLE;
-                break;
-            case 3:
-                roomType = RoomType.TWIN;
-                break;
-            case 4:
-                roomType = RoomType.TRIPLE;
-                break;
-            case 5:
-                roomType = RoomType.QUAD;
-                break;
-            default:
-                roomType = RoomType.FAMILY;
-                break;
-        }
-        return roomType;
-    }
+    private final AvailabilityIndexService availabilityIndexService;
+    private final OccupancyCalendarService occupancyCalendarService;
+    private final CatalogCacheService catalogCacheService;
     private RoomStatus setRoomStatus(String index) {
         if (Integer.parseInt(index) < 1 || Integer.parseInt(index) > 5) {
             throw new ResourceNotFoundException("Room status", "roomStatus", index);
@@ -94,7 +72,7 @@ public class RoomServiceImpl implements RoomService {
 
         Room newRoom = Room.builder()
                 .roomNumber(roomDTO.getRoomNumber())
-                .roomType(setRoomType(roomDTO.getRoomType()))
+                .roomType(RoomType.fromIndex(roomDTO.getRoomType()))
                 .price(new BigDecimal(String.valueOf(roomDTO.getPrice())))
                 .roomStatus(setRoomStatus(roomDTO.getRoomStatus()))
                 .photos(new ArrayList<>())
@@ -122,7 +100,7 @@ public class RoomServiceImpl implements RoomService {
 
     @Override
     public RoomDTO getRoomById(Integer roomId) {
-        Room existingRoom = roomRepository.findById(roomId)
+        Room existingRoom = catalogCacheService.findRoomById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
         return roomToDTO(existingRoom);
     }
@@ -137,7 +115,7 @@ public class RoomServiceImpl implements RoomService {
 
     @Override
     public List<RoomDTO> getAllRoomsByRoomType(String roomTypeIndex) {
-        RoomType roomType = setRoomType(roomTypeIndex);
+        RoomType roomType = RoomType.fromIndex(roomTypeIndex);
 
         List<Room> existingRooms = roomRepository.findByRoomType(roomType)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "room type", String.valueOf(roomType)));
@@ -203,6 +181,52 @@ public class RoomServiceImpl implements RoomService {
                 .build();
     }
 
+    @Override
+    public List<RoomDTO> getAllAvailableRooms(String checkInDate, String checkOutDate, String roomTypeIndex,
+                                              String minPrice, String maxPrice) {
+        UtilityMethods.check_inIsBeforeCheck_out(checkInDate, checkOutDate);
+
+        LocalDate checkIn = UtilityMethods.setLocalDate(checkInDate);
+        LocalDate checkOut = UtilityMethods.setLocalDate(checkOutDate);
+        RoomType roomType = (roomTypeIndex == null || roomTypeIndex.isBlank()) ? null : RoomType.fromIndex(roomTypeIndex);
+        BigDecimal min = (minPrice == null || minPrice.isBlank()) ? null : new BigDecimal(minPrice);
+        BigDecimal max = (maxPrice == null || maxPrice.isBlank()) ? null : new BigDecimal(maxPrice);
+
+        List<Room> availableRooms;
+
+        if (availabilityIndexService.isWarm()) {
+            // one query for the candidates, the overlap check runs against the in-memory index
+            availableRooms = roomRepository.findByRoomTypeAndPriceBand(roomType, min, max).stream()
+                    .filter(room -> availabilityIndexService.isRoomAvailable(room.getRoomId(), checkIn, checkOut))
+                    .collect(Collectors.toList());
+        } else {
+            // index is still cold -> let the database do the overlap check in one query
+            availableRooms = roomRepository.findAvailableRooms(roomType, min, max,
+                    AvailabilityIndexService.BLOCKING_STATUSES, checkIn, checkOut);
+        }
+
+        return availableRooms.stream().map(this::roomToDTO).collect(Collectors.toList());
+    }
+
+    @Override
+    public OccupancyGridResponse getOccupancyGrid(String fromDate, Integer days) {
+        LocalDate from = UtilityMethods.setLocalDate(fromDate);
+
+        List<Room> rooms = roomRepository.findAll(Sort.by(Sort.Direction.ASC, "roomNumber"));
+
+        Map<Integer, String> runs = occupancyCalendarService.getOccupancyRuns(
+                rooms.stream().map(Room::getRoomId).collect(Collectors.toList()), from, days);
+
+        return OccupancyGridResponse.builder()
+                .fromDate(from.toString())
+                .days(days)
+                .rooms(rooms.stream().map(room -> new RoomOccupancy(
+                        room.getRoomId(),
+                        room.getRoomNumber(),
+                        runs.get(room.getRoomId()))).collect(Collectors.toList()))
+                .build();
+    }
+
     @Override
     public RoomDTO updateRoom(Integer roomId, RoomDTO roomDTO, MultipartFile[] files) {
         if (files != null && files.length > 5) {
@@ -213,16 +237,16 @@ public class RoomServiceImpl implements RoomService {
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
         if (files != null) {
-            photoService.deleteAllPhotos(existingRoom);
-            photoService.saveAllPhotos(existingRoom, files);
+            photoService.replaceAllPhotos(existingRoom, files);
         }
 
         existingRoom.setRoomNumber(roomDTO.getRoomNumber());
-        existingRoom.setRoomType(setRoomType(roomDTO.getRoomType()));
+        existingRoom.setRoomType(RoomType.fromIndex(roomDTO.getRoomType()));
         existingRoom.setPrice(new BigDecimal(String.valueOf(roomDTO.getPrice())));
         existingRoom.setRoomStatus(setRoomStatus(roomDTO.getRoomStatus()));
 
         Room updatedRoom = roomRepository.save(existingRoom);
+        catalogCacheService.evictRoom(roomId);
 
         return roomToDTO(updatedRoom);
     }
@@ -232,7 +256,14 @@ public class RoomServiceImpl implements RoomService {
         Room existingRoom = roomRepository.findById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room", "roomId", Integer.toString(roomId)));
 
+        List<String> photoNames = existingRoom.getPhotos().stream().map(Photo::getName).toList();
+
+        // the photo rows go with the room, their files only once no other room names them
         roomRepository.delete(existingRoom);
+        photoService.releasePhotoFiles(photoNames);
+        availabilityIndexService.removeRoom(roomId);
+        occupancyCalendarService.removeRoom(roomId);
+        catalogCacheService.evictRoom(roomId);
 
         return Map.of("Message", "Room with Id " + roomId + " has been deleted successfully!");
     }
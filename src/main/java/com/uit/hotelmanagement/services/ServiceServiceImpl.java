@@ -15,6 +15,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ServiceServiceImpl implements ServiceService {
     private final ServiceRepository serviceRepository;
+    private final CatalogCacheService catalogCacheService;
 
     @Override
     public ServiceDTO createService(ServiceDTO serviceDTO) {
@@ -36,7 +37,7 @@ public class ServiceServiceImpl implements ServiceService {
 
     @Override
     public ServiceDTO getServiceById(Integer serviceId) {
-        Service existingService = serviceRepository.findById(serviceId)
+        Service existingService = catalogCacheService.findServiceById(serviceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "serviceId", Integer.toString(serviceId)));
         return serviceToDTO(existingService);
     }
@@ -70,6 +71,7 @@ public class ServiceServiceImpl implements ServiceService {
         existingService.setPrice(serviceDTO.getPrice());
 
         Service updatedService = serviceRepository.save(existingService);
+        catalogCacheService.evictService(serviceId);
 
         return serviceToDTO(updatedService);
     }
@@ -80,6 +82,7 @@ public class ServiceServiceImpl implements ServiceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "serviceId", Integer.toString(serviceId)));
 
         serviceRepository.delete(existingService);
+        catalogCacheService.evictService(serviceId);
 
         return Map.of("Message", "Service with Id " + serviceId + " has been deleted successfully!");
     }
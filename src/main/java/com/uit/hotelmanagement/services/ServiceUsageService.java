@@ -2,6 +2,7 @@ package com.uit.hotelmanagement.services;
 
 import com.uit.hotelmanagement.dtos.ServiceUsageDTO;
 import com.uit.hotelmanagement.entities.ServiceUsage;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -13,6 +14,7 @@ public interface ServiceUsageService {
 
     // Get
     List<ServiceUsageDTO> getAllServiceUsage();
+    CursorPageResponse<ServiceUsageDTO> getAllServiceUsageWithCursor(String cursor, Integer pageSize, Boolean skipCount);
     ServiceUsageDTO getServiceUsageById(Integer serviceUsageId);
     List<ServiceUsageDTO> getAllByNumOfUsers(Integer numOfUsers);
     List<ServiceUsageDTO> getAllByStartDate(String startDate);
@@ -8,11 +8,13 @@ import com.uit.hotelmanagement.exceptions.BookingStatusException;
 import com.uit.hotelmanagement.exceptions.CustomLocalDateException;
 import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
 import com.uit.hotelmanagement.repositories.BookingRepository;
-import com.uit.hotelmanagement.repositories.ServiceRepository;
 import com.uit.hotelmanagement.repositories.ServiceUsageRepository;
 import com.uit.hotelmanagement.utils.BookingStatus;
+import com.uit.hotelmanagement.utils.PageCursor;
 import com.uit.hotelmanagement.utils.UtilityMethods;
+import com.uit.hotelmanagement.utils.records.CursorPageResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -25,14 +27,14 @@ import java.util.stream.Collectors;
 public class ServiceUsageServiceImpl implements ServiceUsageService{
     private final ServiceUsageRepository SURepository;
     private final BookingRepository bookingRepository;
-    private final ServiceRepository serviceRepository;
+    private final CatalogCacheService catalogCacheService;
 
     @Override
     public ServiceUsageDTO createServiceUsage(Integer bookingId, Integer serviceId, ServiceUsageDTO serviceUsageDTO) {
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
 
-        Service existingService = serviceRepository.findById(serviceId)
+        Service existingService = catalogCacheService.findServiceById(serviceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "serviceId", Integer.toString(serviceId)));
 
         // check bookingStatus
@@ -74,6 +76,28 @@ public class ServiceUsageServiceImpl implements ServiceUsageService{
         return SURepository.findAll().stream().map(this::serviceUsageToDTO).collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPageResponse<ServiceUsageDTO> getAllServiceUsageWithCursor(String cursor, Integer pageSize, Boolean skipCount) {
+        int size = PageCursor.pageSize(pageSize);
+
+        // one extra row tells whether there is a next page
+        List<ServiceUsage> serviceUsages = SURepository.findByServiceUsageIdGreaterThanOrderByServiceUsageId(
+                PageCursor.decode(cursor), PageRequest.of(0, size + 1));
+
+        boolean isLast = serviceUsages.size() <= size;
+        if (!isLast) {
+            serviceUsages = serviceUsages.subList(0, size);
+        }
+
+        return CursorPageResponse.<ServiceUsageDTO>builder()
+                .content(serviceUsages.stream().map(this::serviceUsageToDTO).collect(Collectors.toList()))
+                .pageSize(size)
+                .nextCursor(isLast ? null : PageCursor.encode(serviceUsages.getLast().getServiceUsageId()))
+                .isLast(isLast)
+                .totalElements(skipCount ? null : SURepository.count())
+                .build();
+    }
+
     @Override
     public ServiceUsageDTO getServiceUsageById(Integer serviceUsageId) {
         ServiceUsage serviceUsage = SURepository.findById(serviceUsageId)
@@ -112,7 +136,7 @@ public class ServiceUsageServiceImpl implements ServiceUsageService{
 
     @Override
     public List<ServiceUsageDTO> getAllByService(Integer serviceId) {
-        Service existingService = serviceRepository.findById(serviceId)
+        Service existingService = catalogCacheService.findServiceById(serviceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "serviceId", Integer.toString(serviceId)));
 
         return SURepository.findByService(existingService).stream().map(this::serviceUsageToDTO).collect(Collectors.toList());
@@ -151,7 +175,7 @@ public class ServiceUsageServiceImpl implements ServiceUsageService{
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking", "bookingId", Integer.toString(bookingId)));
 
-        Service existingService = serviceRepository.findById(serviceId)
+        Service existingService = catalogCacheService.findServiceById(serviceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "serviceId", Integer.toString(serviceId)));
 
         // check startDate not after endDate
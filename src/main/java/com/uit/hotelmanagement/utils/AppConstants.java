@@ -5,4 +5,10 @@ public class AppConstants {
     public static final String PAGE_SIZE = "3";
     public static final String SORT_BY = "roomNumber";
     public static final String DIR = "ASC";
+    public static final String GRID_DAYS = "90";
+    // Integer.MIN_VALUE, MySQL Connector/J then streams a forward-only result row by row
+    // without turning on cursor fetch for the whole datasource
+    public static final String EXPORT_FETCH_SIZE = "-2147483648";
+    public static final String CURSOR_PAGE_SIZE = "20";
+    public static final int MAX_CURSOR_PAGE_SIZE = 500;
 }
@@ -0,0 +1,107 @@
+package com.uit.hotelmanagement.utils;
+
+import com.uit.hotelmanagement.utils.records.CacheStats;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// LRU map bounded by size, entries also expire after a fixed time-to-live
+public class BoundedCache<K, V> {
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // bumped by every invalidation, a load that started before it must not be cached
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // access order, the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // on a miss the loader runs outside the lock, null results are not cached
+    public V get(K key, Function<K, V> loader) {
+        long loadEpoch;
+
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits++;
+                return entry.value();
+            }
+
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadEpoch = epoch;
+        }
+
+        V value = loader.apply(key);
+
+        if (value != null) {
+            synchronized (this) {
+                if (loadEpoch == epoch) {
+                    entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+
+        return value;
+    }
+
+    // a lookup without a loader, not counted as a hit or a miss
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt() - System.nanoTime() > 0 ? entry.value() : null;
+    }
+
+    // for values the caller just wrote, so there is no older load to race with
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(K key) {
+        epoch++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        epoch++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized CacheStats stats() {
+        long requests = hits + misses;
+
+        return new CacheStats(name, entries.size(), maxSize, hits, misses, evictions,
+                requests == 0 ? 0.0 : (double) hits / requests, null, null);
+    }
+}
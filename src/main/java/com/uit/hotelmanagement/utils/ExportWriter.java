@@ -0,0 +1,94 @@
+package com.uit.hotelmanagement.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+
+// writes export rows one at a time as NDJSON lines or CSV records, nothing is kept after a row is written
+public class ExportWriter<T extends Record> implements Flushable {
+    private final ExportFormat format;
+    private final RecordComponent[] components;
+    private final ObjectWriter jsonWriter;
+    private final Writer writer;
+    private boolean headerWritten;
+
+    public ExportWriter(ExportFormat format, Class<T> rowType, OutputStream outputStream, ObjectMapper objectMapper) {
+        this.format = format;
+        this.components = rowType.getRecordComponents();
+        this.jsonWriter = objectMapper.writerFor(rowType);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    public void write(T row) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(jsonWriter.writeValueAsString(row));
+            } else {
+                if (!headerWritten) {
+                    writeCsvHeader();
+                }
+                writeCsvRow(row);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvHeader() throws IOException {
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(components[i].getName());
+        }
+        writer.write('\n');
+        headerWritten = true;
+    }
+
+    private void writeCsvRow(T row) throws IOException {
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+
+            Object value;
+            try {
+                value = components[i].getAccessor().invoke(row);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Can't read " + components[i].getName() + " of an export row", e);
+            }
+
+            if (value != null) {
+                writer.write(csvField(value.toString()));
+            }
+        }
+    }
+
+    // quote fields holding separators, quotes or line breaks
+    private String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
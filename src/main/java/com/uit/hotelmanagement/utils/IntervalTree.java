@@ -0,0 +1,189 @@
+package com.uit.hotelmanagement.utils;
+
+// AVL tree of half-open intervals [start, end) ordered by (start, id),
+// every node keeps the max end of its subtree so overlap queries are O(log n)
+public class IntervalTree {
+    private static final class Node {
+        private final int start;
+        private final int end;
+        private final int id;
+        private int maxEnd;
+        private int height;
+        private Node left;
+        private Node right;
+
+        private Node(int start, int end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+            this.height = 1;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void insert(int start, int end, int id) {
+        root = insert(root, start, end, id);
+    }
+
+    public boolean remove(int start, int id) {
+        int oldSize = size;
+        root = remove(root, start, id);
+        return size != oldSize;
+    }
+
+    // true if any stored interval overlaps [start, end)
+    public boolean overlaps(int start, int end) {
+        Node node = root;
+
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return true;
+            }
+
+            // if the left subtree reaches past start, an overlap can only be on the left
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+
+        return false;
+    }
+
+    private Node insert(Node node, int start, int end, int id) {
+        if (node == null) {
+            size++;
+            return new Node(start, end, id);
+        }
+
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, start, end, id);
+        } else {
+            // same key, replace the node to pick up the new end
+            Node replaced = new Node(start, end, id);
+            replaced.left = node.left;
+            replaced.right = node.right;
+            node = replaced;
+        }
+
+        return balance(node);
+    }
+
+    private Node remove(Node node, int start, int id) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            // replace with the smallest node of the right subtree
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+
+            Node replaced = new Node(successor.start, successor.end, successor.id);
+            replaced.right = removeMin(node.right);
+            replaced.left = node.left;
+            node = replaced;
+        }
+
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private int compare(int start, int id, Node node) {
+        if (start != node.start) {
+            return Integer.compare(start, node.start);
+        }
+        return Integer.compare(id, node.id);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+
+        int balanceFactor = height(node.left) - height(node.right);
+
+        if (balanceFactor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (balanceFactor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private int maxEnd(Node node) {
+        return node == null ? Integer.MIN_VALUE : node.maxEnd;
+    }
+}
@@ -0,0 +1,71 @@
+package com.uit.hotelmanagement.utils;
+
+import java.util.Arrays;
+
+// one 2-bit state code per night packed into long words (32 nights per word)
+public class OccupancyCalendar {
+    public static final int FREE = 0;
+    public static final int RESERVED = 1;
+    public static final int OCCUPIED = 2;
+
+    private static final int BITS_PER_NIGHT = 2;
+    private static final int NIGHTS_PER_WORD = Long.SIZE / BITS_PER_NIGHT;
+    private static final long CELL_MASK = (1L << BITS_PER_NIGHT) - 1;
+    // run-length codes: F = free, R = reserved, O = occupied
+    private static final char[] CODES = {'F', 'R', 'O'};
+
+    private final long[] words;
+    private final int nights;
+
+    public OccupancyCalendar(int nights) {
+        this.nights = nights;
+        this.words = new long[(nights + NIGHTS_PER_WORD - 1) / NIGHTS_PER_WORD];
+    }
+
+    public int get(int night) {
+        int shift = (night % NIGHTS_PER_WORD) * BITS_PER_NIGHT;
+        return (int) ((words[night / NIGHTS_PER_WORD] >>> shift) & CELL_MASK);
+    }
+
+    // mark nights [fromNight, toNight), a night keeps the stronger state if bookings overlap
+    public void mark(int fromNight, int toNight, int state) {
+        int from = Math.max(fromNight, 0);
+        int to = Math.min(toNight, nights);
+
+        for (int night = from; night < to; night++) {
+            if (get(night) < state) {
+                int shift = (night % NIGHTS_PER_WORD) * BITS_PER_NIGHT;
+                int index = night / NIGHTS_PER_WORD;
+                words[index] = (words[index] & ~(CELL_MASK << shift)) | ((long) state << shift);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    // run-length encode nights [fromNight, toNight), e.g. "3F5R2O80F"
+    public String encode(int fromNight, int toNight) {
+        StringBuilder runs = new StringBuilder();
+
+        int night = fromNight;
+        while (night < toNight) {
+            int state = get(night);
+            int length = 1;
+
+            while (night + length < toNight && get(night + length) == state) {
+                length++;
+            }
+
+            runs.append(length).append(CODES[state]);
+            night += length;
+        }
+
+        return runs.toString();
+    }
+
+    public static String encodeFree(int nights) {
+        return nights + String.valueOf(CODES[FREE]);
+    }
+}
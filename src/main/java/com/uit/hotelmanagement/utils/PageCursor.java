@@ -0,0 +1,38 @@
+package com.uit.hotelmanagement.utils;
+
+import com.uit.hotelmanagement.exceptions.PageCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// opaque continuation tokens for keyset pages: the last id of a page, base64 encoded
+public class PageCursor {
+    private static final String PREFIX = "id:";
+
+    public static String encode(Integer lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // no cursor means the first page
+    public static Integer decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Integer.parseInt(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // NumberFormatException is an IllegalArgumentException too
+        }
+
+        throw new PageCursorException("The page cursor " + cursor + " is invalid!");
+    }
+
+    public static int pageSize(Integer pageSize) {
+        return Math.clamp(pageSize, 1, AppConstants.MAX_CURSOR_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.uit.hotelmanagement.utils;
+
+import com.uit.hotelmanagement.utils.records.CacheStats;
+import com.uit.hotelmanagement.utils.records.PhotoFile;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRU of buffered photos bounded by their total bytes rather than by a count
+public class PhotoByteCache {
+    private final String name;
+    private final long maxBytes;
+    private final LinkedHashMap<String, PhotoFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    // bumped by every invalidation, a load that started before it must not be cached
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public PhotoByteCache(String name, long maxBytes) {
+        this.name = name;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized PhotoFile get(String key) {
+        PhotoFile photoFile = entries.get(key);
+
+        if (photoFile != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+
+        return photoFile;
+    }
+
+    public synchronized long epoch() {
+        return epoch;
+    }
+
+    public synchronized void put(String key, PhotoFile photoFile, long size, long loadEpoch) {
+        if (loadEpoch != epoch || size > maxBytes || entries.containsKey(key)) {
+            return;
+        }
+
+        // the eldest entries are the least recently served ones
+        Iterator<Map.Entry<String, PhotoFile>> eldest = entries.entrySet().iterator();
+        while (bytes + size > maxBytes && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+            evictions++;
+        }
+
+        entries.put(key, photoFile);
+        bytes += size;
+    }
+
+    public synchronized void invalidate(String key) {
+        epoch++;
+
+        PhotoFile photoFile = entries.remove(key);
+        if (photoFile != null) {
+            bytes -= sizeOf(photoFile);
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        long requests = hits + misses;
+
+        return new CacheStats(name, entries.size(), null, hits, misses, evictions,
+                requests == 0 ? 0.0 : (double) hits / requests, bytes, maxBytes);
+    }
+
+    private long sizeOf(PhotoFile photoFile) {
+        return ((ByteBufferResource) photoFile.resource()).contentLength();
+    }
+}
@@ -0,0 +1,49 @@
+package com.uit.hotelmanagement.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+// photos live in <root>/ab/cd/abcd....jpg, two levels of 256 directories keep every directory small
+public class PhotoShards {
+    // uuid and digest names start with hex, anything else (temp files, old uploads) stays flat
+    public static boolean isShardable(String filename) {
+        if (filename.length() < 4) {
+            return false;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            if (!HexFormat.isHexDigit(filename.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static Path shardedPath(Path root, String filename) {
+        if (!isShardable(filename)) {
+            return root.resolve(filename);
+        }
+
+        String prefix = filename.substring(0, 4).toLowerCase();
+
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(filename);
+    }
+
+    // sharded first, then the flat layout a file may not be migrated out of yet, then sharded again
+    // in case the migration moved it in between, null when it's in neither
+    public static Path locate(Path root, String filename) {
+        Path sharded = shardedPath(root, filename);
+        if (Files.isRegularFile(sharded)) {
+            return sharded;
+        }
+
+        Path flat = root.resolve(filename);
+        if (Files.isRegularFile(flat)) {
+            return flat;
+        }
+
+        return Files.isRegularFile(sharded) ? sharded : null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.uit.hotelmanagement.utils;
+
+import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
+
+public enum PhotoSize {
+    ORIGINAL(0),
+    THUMBNAIL(160),
+    MEDIUM(640),
+    LARGE(1280);
+
+    // longest edge in pixels, 0 keeps the upload as it is
+    private final int maxDimension;
+
+    PhotoSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    // variants live next to the original: <uuid>.jpg -> <uuid>_thumbnail.jpg
+    public String fileName(String photoName) {
+        if (this == ORIGINAL) {
+            return photoName;
+        }
+
+        int dot = photoName.lastIndexOf('.');
+        String suffix = "_" + name().toLowerCase();
+
+        return dot < 0 ? photoName + suffix : photoName.substring(0, dot) + suffix + photoName.substring(dot);
+    }
+
+    // <uuid>_thumbnail.jpg -> <uuid>.jpg, an original maps to itself
+    public static String originalName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String base = dot < 0 ? filename : filename.substring(0, dot);
+        String extension = dot < 0 ? "" : filename.substring(dot);
+
+        for (PhotoSize size : values()) {
+            String suffix = "_" + size.name().toLowerCase();
+
+            if (size != ORIGINAL && base.endsWith(suffix)) {
+                return base.substring(0, base.length() - suffix.length()) + extension;
+            }
+        }
+
+        return filename;
+    }
+
+    public static PhotoSize fromName(String name) {
+        for (PhotoSize size : values()) {
+            if (size.name().equalsIgnoreCase(name)) {
+                return size;
+            }
+        }
+        throw new ResourceNotFoundException("Photo size", "size", name);
+    }
+}
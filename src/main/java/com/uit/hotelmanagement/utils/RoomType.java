@@ -1,10 +1,23 @@
 package com.uit.hotelmanagement.utils;
 
+import com.uit.hotelmanagement.exceptions.ResourceNotFoundException;
+
 public enum RoomType {
     SINGLE,
     DOUBLE, // 1 giường đôi
     TWIN, // 2 giường đơn
     TRIPLE,
     QUAD,
-    FAMILY
+    FAMILY;
+
+    // the 1-based index the api takes, 1 -> SINGLE ... 6 -> FAMILY
+    public static RoomType fromIndex(String index) {
+        int position = Integer.parseInt(index);
+
+        if (position < 1 || position > values().length) {
+            throw new ResourceNotFoundException("Room type", "roomType", index);
+        }
+
+        return values()[position - 1];
+    }
 }
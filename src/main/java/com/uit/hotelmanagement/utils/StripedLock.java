@@ -0,0 +1,44 @@
+package com.uit.hotelmanagement.utils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// fixed pool of locks, a key always maps to the same stripe so only equal keys (or rare collisions) wait
+public class StripedLock {
+    private final Lock[] stripes;
+    private final int mask;
+
+    public StripedLock(int stripeCount) {
+        // round up to a power of two so the stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+
+        this.stripes = new Lock[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(int key) {
+        return stripes[indexOf(key)];
+    }
+
+    // distinct stripes of all keys in stripe order, locking them in list order can't deadlock
+    public List<Lock> getAll(Collection<Integer> keys) {
+        return keys.stream()
+                .mapToInt(this::indexOf)
+                .distinct()
+                .sorted()
+                .mapToObj(index -> stripes[index])
+                .toList();
+    }
+
+    private int indexOf(int key) {
+        // spread the bits so sequential ids don't cluster
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,80 @@
+package com.uit.hotelmanagement.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// one token bucket per key, lock-free: a bucket is a single "full again at" timestamp moved forward by CAS
+// (the generic cell rate algorithm), so concurrent requests of one key never wait on each other
+public class TokenBuckets {
+    private static final long EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+
+    // past this many keys new ones trigger a sweep of the full buckets, it's not a hard limit
+    private final int maxKeys;
+    private final long capacity;
+    private final long refillNanos;
+    private final long burstNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder rejections = new LongAdder();
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+
+    public TokenBuckets(int maxKeys, int capacity, Duration refillInterval) {
+        this.maxKeys = maxKeys;
+        this.capacity = capacity;
+        // one token comes back every refillInterval
+        this.refillNanos = refillInterval.toNanos();
+        this.burstNanos = capacity * refillNanos;
+    }
+
+    // 0 when the cost was taken, otherwise the nanos until the bucket holds enough tokens (nothing is taken then);
+    // a cost above the capacity takes a full bucket
+    public long tryAcquire(String key, int cost) {
+        long now = System.nanoTime();
+        long costNanos = Math.min(cost, capacity) * refillNanos;
+
+        AtomicLong fullAt = buckets.get(key);
+        if (fullAt == null) {
+            if (buckets.size() >= maxKeys) {
+                evictFull(now);
+            }
+            // a new key starts with a full bucket
+            fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current - now, 0) + now + costNanos;
+
+            // the bucket would have to hold more than its capacity
+            long overdraft = next - now - burstNanos;
+            if (overdraft > 0) {
+                rejections.increment();
+                return overdraft;
+            }
+
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    // a full bucket is the same as no bucket, dropping it loses nothing
+    // (a request racing with the drop may get one extra burst);
+    // at most one sweep a second, so a flood of new keys can't turn every request into a scan
+    private void evictFull(long now) {
+        long last = lastEviction.get();
+
+        if (now - last >= EVICTION_INTERVAL_NANOS && lastEviction.compareAndSet(last, now)) {
+            buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        }
+    }
+}
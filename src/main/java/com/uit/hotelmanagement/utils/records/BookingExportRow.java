@@ -0,0 +1,20 @@
+package com.uit.hotelmanagement.utils.records;
+
+import com.uit.hotelmanagement.utils.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record BookingExportRow(
+        Integer bookingId,
+        LocalDate checkInDate,
+        LocalDate checkOutDate,
+        BookingStatus bookingStatus,
+        BigDecimal bookingVoucher,
+        BigDecimal stayPrice,
+        Integer customerId,
+        String customerName,
+        Integer roomId,
+        String roomNumber
+) {
+}
@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.utils.records;
+
+import com.uit.hotelmanagement.utils.HistoryType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record BookingHistoryExportRow(
+        Integer bookHistoryId,
+        Integer bookingId,
+        HistoryType historyType,
+        LocalDate actualCheckInDate,
+        LocalDate actualCheckOutDate,
+        LocalDate changeDate,
+        BigDecimal finalTotalPrice,
+        String roomNumber,
+        String note
+) {
+}
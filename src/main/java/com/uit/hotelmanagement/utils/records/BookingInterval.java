@@ -0,0 +1,14 @@
+package com.uit.hotelmanagement.utils.records;
+
+import com.uit.hotelmanagement.utils.BookingStatus;
+
+import java.time.LocalDate;
+
+public record BookingInterval(
+        Integer bookingId,
+        Integer roomId,
+        LocalDate checkInDate,
+        LocalDate checkOutDate,
+        BookingStatus bookingStatus
+) {
+}
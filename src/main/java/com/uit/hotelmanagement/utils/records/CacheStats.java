@@ -0,0 +1,15 @@
+package com.uit.hotelmanagement.utils.records;
+
+public record CacheStats(
+        String name,
+        Integer size,
+        Integer maxSize,
+        long hits,
+        long misses,
+        long evictions,
+        double hitRatio,
+        // only set for caches bounded by bytes
+        Long bytes,
+        Long maxBytes
+) {
+}
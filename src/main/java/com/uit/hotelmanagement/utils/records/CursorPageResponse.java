@@ -0,0 +1,16 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record CursorPageResponse<T>(
+        List<T> content,
+        Integer pageSize,
+        String nextCursor,
+        Boolean isLast,
+        // null when the count was skipped
+        Long totalElements
+) {
+}
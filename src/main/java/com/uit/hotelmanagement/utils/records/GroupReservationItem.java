@@ -0,0 +1,18 @@
+package com.uit.hotelmanagement.utils.records;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// either a specific roomId or a roomType index, any free room of that type is picked
+public record GroupReservationItem(
+        Integer roomId,
+        @Min(value = 1, message = "Room type must be an integer between 1 and 6")
+        @Max(value = 6, message = "Room type must be an integer between 1 and 6")
+        String roomType,
+        @NotNull(message = "Check in date can't be null")
+        String checkInDate,
+        @NotNull(message = "Check out date can't be null")
+        String checkOutDate
+) {
+}
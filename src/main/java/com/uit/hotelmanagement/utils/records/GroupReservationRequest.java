@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.utils.records;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record GroupReservationRequest(
+        @NotEmpty(message = "A group reservation needs at least one room")
+        List<@Valid GroupReservationItem> items,
+        @DecimalMin(value = "0.0")
+        @DecimalMax(value = "1.0")
+        @Digits(integer = 1, fraction = 2)
+        String bookingVoucher
+) {
+}
@@ -0,0 +1,13 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record OccupancyGridResponse(
+        String fromDate,
+        Integer days,
+        List<RoomOccupancy> rooms
+) {
+}
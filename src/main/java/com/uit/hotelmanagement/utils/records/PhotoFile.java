@@ -0,0 +1,13 @@
+package com.uit.hotelmanagement.utils.records;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+public record PhotoFile(
+        Resource resource,
+        MediaType mediaType,
+        String eTag,
+        // false when a variant isn't resized yet and the original stands in for it
+        boolean immutable
+) {
+}
@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record PhotoGcReport(
+        Boolean dryRun,
+        Long scannedFiles,
+        Long orphanFiles,
+        Long orphanBytes,
+        // at most a sample of the names, the counts cover everything
+        List<String> sampleOrphanFiles,
+        Long scannedPhotos,
+        Long danglingPhotos,
+        List<String> sampleDanglingPhotos
+) {
+}
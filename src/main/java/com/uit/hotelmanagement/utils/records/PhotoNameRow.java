@@ -0,0 +1,7 @@
+package com.uit.hotelmanagement.utils.records;
+
+public record PhotoNameRow(
+        Integer photoId,
+        String name
+) {
+}
@@ -0,0 +1,19 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+@Builder
+public record ResizeStats(
+        Integer threads,
+        Integer activeJobs,
+        Integer queuedJobs,
+        Integer queueCapacity,
+        Long enqueuedJobs,
+        Long requeuedJobs,
+        Long completedJobs,
+        Long discardedJobs,
+        Long failedJobs,
+        // photos whose last resize failed, not retried on demand until the entry expires
+        Integer recentFailures
+) {
+}
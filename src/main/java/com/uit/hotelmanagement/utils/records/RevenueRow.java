@@ -0,0 +1,28 @@
+package com.uit.hotelmanagement.utils.records;
+
+import com.uit.hotelmanagement.utils.PaymentMethod;
+import com.uit.hotelmanagement.utils.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// one rollup bucket, the dimensions a report doesn't group by stay null
+public record RevenueRow(
+        LocalDate paymentDate,
+        PaymentMethod paymentMethod,
+        PaymentStatus paymentStatus,
+        Long paymentCount,
+        BigDecimal amountSum
+) {
+    public RevenueRow(LocalDate paymentDate, Long paymentCount, BigDecimal amountSum) {
+        this(paymentDate, null, null, paymentCount, amountSum);
+    }
+
+    public RevenueRow(PaymentMethod paymentMethod, Long paymentCount, BigDecimal amountSum) {
+        this(null, paymentMethod, null, paymentCount, amountSum);
+    }
+
+    public RevenueRow(PaymentStatus paymentStatus, Long paymentCount, BigDecimal amountSum) {
+        this(null, null, paymentStatus, paymentCount, amountSum);
+    }
+}
@@ -0,0 +1,16 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+@Builder
+public record RollupBackfillReport(
+        LocalDate fromDate,
+        LocalDate toDate,
+        Integer chunks,
+        Long payments,
+        Long rollups,
+        Long elapsedMillis
+) {
+}
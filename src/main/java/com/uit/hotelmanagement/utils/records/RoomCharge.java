@@ -0,0 +1,7 @@
+package com.uit.hotelmanagement.utils.records;
+
+import lombok.Builder;
+
+@Builder
+public record RoomCharge(String roomNumber, String fromDate, String toDate, String nightlyPrice, String price) {
+}
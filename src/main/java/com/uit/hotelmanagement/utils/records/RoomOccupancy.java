@@ -0,0 +1,8 @@
+package com.uit.hotelmanagement.utils.records;
+
+public record RoomOccupancy(
+        Integer roomId,
+        String roomNumber,
+        String runs
+) {
+}
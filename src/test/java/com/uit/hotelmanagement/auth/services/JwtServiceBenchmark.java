@@ -0,0 +1,82 @@
+package com.uit.hotelmanagement.auth.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// per request cost of validating a bearer token, run with the main method below
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET_KEY = "liverpoolmanchesterunitedarsenalnothinghamforest";
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET_KEY, 10_000);
+        userDetails = User.withUsername("guest@hotel.test").password("password").build();
+        token = jwtService.generateToken(userDetails);
+    }
+
+    // what the filter used to do: extractUsername, then isTokenValid with its expiration and username checks,
+    // every call decoding the key and building a parser
+    @Benchmark
+    public boolean threeParsesWithFreshParser() {
+        String username = legacyClaims().getSubject();
+        boolean expired = legacyClaims().getExpiration().before(new Date());
+        return username != null && !expired && legacyClaims().getSubject().equals(userDetails.getUsername());
+    }
+
+    @Benchmark
+    public Claims oneParseWithPrebuiltParser() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims cachedValidation() {
+        return jwtService.validateToken(token);
+    }
+
+    private Claims legacyClaims() {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(SECRET_KEY));
+
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,49 @@
+package com.uit.hotelmanagement.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the cost rules from application.yml must hit the endpoints they were written for
+class RateLimitFilterServiceCostTest {
+
+    @Test
+    void configuredRulesChargeTheWeightedEndpoints() {
+        Map<String, Integer> expectedCosts = new LinkedHashMap<>();
+        expectedCosts.put("/api/v1/export/bookings", 50);
+        expectedCosts.put("/api/v1/export/bookingHistories", 50);
+        expectedCosts.put("/api/v1/booking/getAllBookingsWithCursor", 2);
+        expectedCosts.put("/api/v1/payment/getAllPaymentsWithCursor", 2);
+        expectedCosts.put("/api/v1/room/getAllRoomsWithPagination", 2);
+        expectedCosts.put("/api/v1/room/getAllRoomsWithPaginationAndSorting", 2);
+        expectedCosts.put("/api/v1/booking/getAllBookings", 10);
+        expectedCosts.put("/api/v1/booking/getAllBookingsByRoom/7", 10);
+        expectedCosts.put("/api/v1/payment/getAllPaymentsByPaymentMethod/1", 10);
+        expectedCosts.put("/api/v1/room/getOccupancyGrid", 5);
+        expectedCosts.put("/api/v1/room/getRoomById/7", 1);
+        expectedCosts.put("/api/v1/auth/login", 1);
+
+        RateLimitFilterService rateLimitFilterService = new RateLimitFilterService(new ObjectMapper(),
+                true, 100, 100, Duration.ofMillis(100), configuredCosts());
+
+        expectedCosts.forEach((path, cost) -> assertEquals(cost, rateLimitFilterService.costOf(path), path));
+    }
+
+    // split on commas the same way @Value binds the folded string to String[]
+    private String[] configuredCosts() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+
+        return StringUtils.commaDelimitedListToStringArray(properties.getProperty("project.rateLimit.costs"));
+    }
+}
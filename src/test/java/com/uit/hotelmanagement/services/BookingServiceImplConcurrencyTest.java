@@ -0,0 +1,195 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.dtos.BookingDTO;
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.entities.Customer;
+import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.exceptions.RoomNotAvailableException;
+import com.uit.hotelmanagement.repositories.BookingHistoryRepository;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.repositories.CustomerRepository;
+import com.uit.hotelmanagement.repositories.RoomRepository;
+import com.uit.hotelmanagement.utils.RoomStatus;
+import com.uit.hotelmanagement.utils.RoomType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// hammers reserveRoom from many threads spread over several service instances, as if each were its own node:
+// the striped locks and availability indexes are not shared, only the room row lock and the overlap query are
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservations;LOCK_TIMEOUT=30000",
+        "spring.datasource.username=sa"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceImplConcurrencyTest {
+    private static final int NODES = 4;
+    private static final int ROOMS = 8;
+    private static final int RESERVATIONS = 400;
+    private static final int WINDOW_DAYS = 30;
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    private Customer customer;
+    private List<Room> rooms;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.save(Customer.builder()
+                .firstName("Test")
+                .lastName("Guest")
+                .email("guest@hotel.test")
+                .phoneNumber("0900000000")
+                .build());
+
+        rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            rooms.add(roomRepository.save(Room.builder()
+                    .roomNumber("R" + i)
+                    .roomType(RoomType.SINGLE)
+                    .price(BigDecimal.TEN)
+                    .roomStatus(RoomStatus.AVAILABLE)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        roomRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void reserveRoomNeverDoubleBooksAcrossNodes() throws Exception {
+        for (int threads : new int[]{1, 8, 64}) {
+            bookingRepository.deleteAllInBatch();
+
+            int saved = run(threads);
+
+            assertTrue(saved > 0);
+            assertEquals(saved, bookingRepository.count());
+            assertNoOverlaps(bookingRepository.findAll());
+        }
+    }
+
+    // returns how many reservations were saved, after checking every attempt was either saved or rejected
+    private int run(int threads) throws Exception {
+        List<BookingService> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(newBookingService());
+        }
+
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            BookingService bookingService = nodes.get(t % NODES);
+
+            workers.add(executor.submit(() -> {
+                startSignal.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                for (int i = 0; i < RESERVATIONS / threads; i++) {
+                    LocalDate checkIn = START.plusDays(random.nextInt(WINDOW_DAYS));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+                    Room room = rooms.get(random.nextInt(ROOMS));
+
+                    BookingDTO bookingDTO = BookingDTO.builder()
+                            .checkInDate(checkIn.toString())
+                            .checkOutDate(checkOut.toString())
+                            .bookingVoucher("0.1")
+                            .build();
+                    try {
+                        bookingService.reserveRoom(customer.getCustomerId(), room.getRoomId(), bookingDTO);
+                        saved.incrementAndGet();
+                    } catch (RoomNotAvailableException e) {
+                        // lost the race, or the nights were already taken
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        for (Future<?> worker : workers) {
+            // rethrows anything other than a rejected reservation
+            worker.get();
+        }
+
+        assertEquals(RESERVATIONS / threads * threads, saved.get() + rejected.get());
+        return saved.get();
+    }
+
+    private void assertNoOverlaps(List<Booking> bookings) {
+        Map<Integer, List<Booking>> byRoom = bookings.stream()
+                .collect(Collectors.groupingBy(booking -> booking.getRoom().getRoomId()));
+
+        byRoom.forEach((roomId, roomBookings) -> {
+            List<Booking> sorted = new ArrayList<>(roomBookings);
+            sorted.sort(Comparator.comparing(Booking::getCheckInDate));
+
+            for (int i = 1; i < sorted.size(); i++) {
+                assertTrue(!sorted.get(i).getCheckInDate().isBefore(sorted.get(i - 1).getCheckOutDate()),
+                        "Room " + roomId + " is double booked");
+            }
+        });
+    }
+
+    // a cold availability index, so every reservation is decided by the database under the room row lock
+    private BookingService newBookingService() {
+        return new BookingServiceImpl(
+                customerRepository,
+                roomRepository,
+                bookingRepository,
+                bookingHistoryRepository,
+                mock(ServiceUsageService.class),
+                mock(AvailabilityIndexService.class),
+                mock(OccupancyCalendarService.class),
+                mock(CatalogCacheService.class),
+                new TransactionTemplate(transactionManager));
+    }
+}
@@ -0,0 +1,205 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.dtos.BookingDTO;
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.entities.Customer;
+import com.uit.hotelmanagement.entities.Payment;
+import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.entities.Service;
+import com.uit.hotelmanagement.entities.ServiceUsage;
+import com.uit.hotelmanagement.repositories.BookingHistoryRepository;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.repositories.CustomerRepository;
+import com.uit.hotelmanagement.repositories.RoomRepository;
+import com.uit.hotelmanagement.repositories.ServiceRepository;
+import com.uit.hotelmanagement.repositories.ServiceUsageRepository;
+import com.uit.hotelmanagement.utils.BookingStatus;
+import com.uit.hotelmanagement.utils.PaymentMethod;
+import com.uit.hotelmanagement.utils.PaymentStatus;
+import com.uit.hotelmanagement.utils.RoomStatus;
+import com.uit.hotelmanagement.utils.RoomType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+// every listing must cost the same number of statements no matter how many bookings it returns
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingServiceImplListingTest {
+    private static final int CUSTOMERS = 5;
+    private static final int ROOMS = 4;
+    private static final int SERVICES = 3;
+    private static final int BOOKINGS = 40;
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+    @Autowired
+    private ServiceRepository serviceRepository;
+    @Autowired
+    private ServiceUsageRepository serviceUsageRepository;
+
+    private BookingService bookingService;
+    private Statistics statistics;
+    private Customer firstCustomer;
+    private Room firstRoom;
+
+    @BeforeEach
+    void setUp() {
+        CatalogCacheService catalogCacheService = new CatalogCacheServiceImpl(roomRepository, serviceRepository,
+                100, Duration.ofMinutes(10));
+
+        bookingService = new BookingServiceImpl(customerRepository, roomRepository, bookingRepository,
+                bookingHistoryRepository,
+                new ServiceUsageServiceImpl(serviceUsageRepository, bookingRepository, catalogCacheService),
+                mock(AvailabilityIndexService.class), mock(OccupancyCalendarService.class), catalogCacheService,
+                new TransactionTemplate(transactionManager));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        seed();
+
+        // start every listing from an empty persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getAllBookingsUsesOneStatement() {
+        assertStatements(1, BOOKINGS, () -> bookingService.getAllBookings());
+    }
+
+    @Test
+    void getAllBookingsByCheckInDateUsesOneStatement() {
+        assertStatements(1, BOOKINGS / 10, () -> bookingService.getAllBookingsByCheckInDate(START.toString()));
+    }
+
+    @Test
+    void getAllBookingsByCheckOutDateUsesOneStatement() {
+        assertStatements(1, BOOKINGS / 10, () -> bookingService.getAllBookingsByCheckOutDate(START.plusDays(2).toString()));
+    }
+
+    @Test
+    void getAllBookingsByBookingStatusUsesOneStatement() {
+        // index 1 is CONFIRMED
+        assertStatements(1, BOOKINGS / 2, () -> bookingService.getAllBookingsByBookingStatus("1"));
+    }
+
+    @Test
+    void getAllBookingsByCustomerUsesTwoStatements() {
+        // the customer lookup plus the listing
+        assertStatements(2, BOOKINGS / CUSTOMERS, () -> bookingService.getAllBookingsByCustomer(firstCustomer.getCustomerId()));
+    }
+
+    @Test
+    void getAllBookingsByRoomUsesTwoStatements() {
+        // the room lookup (a catalog cache miss) plus the listing
+        assertStatements(2, BOOKINGS / ROOMS, () -> bookingService.getAllBookingsByRoom(firstRoom.getRoomId()));
+    }
+
+    private void assertStatements(long expectedStatements, int expectedBookings, Supplier<List<BookingDTO>> listing) {
+        statistics.clear();
+
+        List<BookingDTO> bookingDTOs = listing.get();
+
+        assertEquals(expectedBookings, bookingDTOs.size());
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount());
+    }
+
+    private void seed() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(entityManager.persist(Customer.builder()
+                    .firstName("Guest")
+                    .lastName("Number " + i)
+                    .email("guest" + i + "@hotel.test")
+                    .phoneNumber("0900000" + i)
+                    .build()));
+        }
+
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            rooms.add(entityManager.persist(Room.builder()
+                    .roomNumber("R" + i)
+                    .roomType(RoomType.DOUBLE)
+                    .price(BigDecimal.valueOf(100 + i))
+                    .roomStatus(RoomStatus.AVAILABLE)
+                    .build()));
+        }
+
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < SERVICES; i++) {
+            services.add(entityManager.persist(Service.builder()
+                    .serviceName("Service " + i)
+                    .price(BigDecimal.TEN)
+                    .build()));
+        }
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            // 10 distinct check-in dates, half of the bookings CONFIRMED
+            LocalDate checkIn = START.plusDays(i % 10);
+
+            Booking booking = entityManager.persist(Booking.builder()
+                    .checkInDate(checkIn)
+                    .checkOutDate(checkIn.plusDays(2))
+                    .bookingStatus(i % 2 == 0 ? BookingStatus.CONFIRMED : BookingStatus.CHECKED_IN)
+                    .bookingVoucher(BigDecimal.ZERO)
+                    .customer(customers.get(i % CUSTOMERS))
+                    .room(rooms.get(i % ROOMS))
+                    .build());
+
+            for (int j = 0; j < i % 4; j++) {
+                entityManager.persist(ServiceUsage.builder()
+                        .numOfUsers(1)
+                        .startDate(checkIn)
+                        .endDate(checkIn)
+                        .serviceVoucher(BigDecimal.ZERO)
+                        .totalPrice(BigDecimal.TEN)
+                        .service(services.get(j % SERVICES))
+                        .booking(booking)
+                        .build());
+            }
+
+            if (i % 3 == 0) {
+                entityManager.persist(Payment.builder()
+                        .paymentDate(checkIn)
+                        .amount(BigDecimal.TEN)
+                        .paymentMethod(PaymentMethod.CASH)
+                        .paymentStatus(PaymentStatus.COMPLETED)
+                        .booking(booking)
+                        .build());
+            }
+        }
+
+        firstCustomer = customers.getFirst();
+        firstRoom = rooms.getFirst();
+    }
+}
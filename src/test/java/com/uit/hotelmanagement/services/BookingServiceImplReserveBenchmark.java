@@ -0,0 +1,171 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.dtos.BookingDTO;
+import com.uit.hotelmanagement.entities.Booking;
+import com.uit.hotelmanagement.entities.Customer;
+import com.uit.hotelmanagement.entities.Room;
+import com.uit.hotelmanagement.exceptions.RoomNotAvailableException;
+import com.uit.hotelmanagement.repositories.BookingHistoryRepository;
+import com.uit.hotelmanagement.repositories.BookingRepository;
+import com.uit.hotelmanagement.repositories.CustomerRepository;
+import com.uit.hotelmanagement.repositories.RoomRepository;
+import com.uit.hotelmanagement.utils.RoomStatus;
+import com.uit.hotelmanagement.utils.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// reservation throughput at 1, 8 and 64 threads against an in-memory booking store, so it measures the
+// striped room locks and the availability index rather than the database; run with the main method below
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingServiceImplReserveBenchmark {
+    private static final int ROOMS = 32;
+    private static final int WINDOW_DAYS = 60;
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    private final ConcurrentLinkedQueue<Booking> store = new ConcurrentLinkedQueue<>();
+    private BookingService bookingService;
+
+    // an empty store every iteration, otherwise the rooms fill up and only rejections are measured
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store.clear();
+        bookingService = newBookingService();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean reserveOneThread() {
+        return reserve();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean reserveEightThreads() {
+        return reserve();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean reserveSixtyFourThreads() {
+        return reserve();
+    }
+
+    private boolean reserve() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate checkIn = START.plusDays(random.nextInt(WINDOW_DAYS));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+
+        BookingDTO bookingDTO = BookingDTO.builder()
+                .checkInDate(checkIn.toString())
+                .checkOutDate(checkOut.toString())
+                .bookingVoucher("0.1")
+                .build();
+        try {
+            bookingService.reserveRoom(1, 1 + random.nextInt(ROOMS), bookingDTO);
+            return true;
+        } catch (RoomNotAvailableException e) {
+            return false;
+        }
+    }
+
+    private BookingService newBookingService() {
+        CustomerRepository customerRepository = stub(CustomerRepository.class);
+        RoomRepository roomRepository = stub(RoomRepository.class);
+        BookingRepository bookingRepository = stub(BookingRepository.class);
+        PlatformTransactionManager transactionManager = stub(PlatformTransactionManager.class);
+
+        Customer customer = Customer.builder().customerId(1).firstName("Test").lastName("Guest").build();
+        when(customerRepository.findById(anyInt())).thenReturn(Optional.of(customer));
+
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 1; i <= ROOMS; i++) {
+            rooms.add(Room.builder().roomId(i).roomNumber("R" + i).roomType(RoomType.SINGLE)
+                    .price(BigDecimal.TEN).roomStatus(RoomStatus.AVAILABLE).build());
+        }
+        when(roomRepository.findByIdForUpdate(anyInt()))
+                .thenAnswer(invocation -> Optional.of(rooms.get((Integer) invocation.getArgument(0) - 1)));
+        when(roomRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        AtomicInteger ids = new AtomicInteger();
+        when(bookingRepository.existsByRoomAndBookingStatus(any(), any())).thenReturn(false);
+        when(bookingRepository.findIntervalsByBookingStatusIn(any())).thenReturn(List.of());
+        when(bookingRepository.existsOverlappingBooking(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Room room = invocation.getArgument(0);
+            LocalDate checkIn = invocation.getArgument(2);
+            LocalDate checkOut = invocation.getArgument(3);
+
+            return store.stream().anyMatch(booking -> booking.getRoom().equals(room)
+                    && checkIn.isBefore(booking.getCheckOutDate())
+                    && checkOut.isAfter(booking.getCheckInDate()));
+        });
+        when(bookingRepository.save(any())).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            booking.setBookingId(ids.incrementAndGet());
+            store.add(booking);
+            return booking;
+        });
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        AvailabilityIndexServiceImpl availabilityIndexService = new AvailabilityIndexServiceImpl(bookingRepository);
+        availabilityIndexService.loadIndex();
+
+        return new BookingServiceImpl(
+                customerRepository,
+                roomRepository,
+                bookingRepository,
+                stub(BookingHistoryRepository.class),
+                stub(ServiceUsageService.class),
+                availabilityIndexService,
+                stub(OccupancyCalendarService.class),
+                stub(CatalogCacheService.class),
+                new TransactionTemplate(transactionManager));
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingServiceImplReserveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.repositories.PhotoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// storing a room's worth of photos one after another versus in parallel, run with the main method below
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileServiceImplUploadBenchmark {
+    private static final int PHOTOS = 5;
+    private static final int PHOTO_BYTES = 4 * 1024 * 1024;
+
+    @Param({"false", "true"})
+    private boolean deduplicate;
+
+    private Path directory;
+    private FileService fileService;
+    private MultipartFile[] files;
+    private final List<String> storedNames = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("upload-benchmark");
+
+        FileServiceImpl fileServiceImpl = new FileServiceImpl(
+                new PhotoCacheServiceImpl(false, DataSize.ofMegabytes(64), DataSize.ofMegabytes(4)),
+                mock(ImageResizeService.class), mock(PhotoRepository.class));
+        ReflectionTestUtils.setField(fileServiceImpl, "path", directory.toString());
+        ReflectionTestUtils.setField(fileServiceImpl, "deduplicate", deduplicate);
+        // a zero grace lets every invocation delete the blobs it just wrote
+        ReflectionTestUtils.setField(fileServiceImpl, "grace", Duration.ZERO);
+        fileService = fileServiceImpl;
+
+        files = new MultipartFile[PHOTOS];
+        for (int i = 0; i < PHOTOS; i++) {
+            byte[] content = new byte[PHOTO_BYTES];
+            ThreadLocalRandom.current().nextBytes(content);
+            files[i] = new MockMultipartFile("files", "photo" + i + ".jpg", "image/jpeg", content);
+        }
+    }
+
+    // each upload takes milliseconds, so per invocation cleanup doesn't skew the timing
+    @TearDown(Level.Invocation)
+    public void deleteStored() throws IOException {
+        for (String name : storedNames) {
+            fileService.deleteFile(name);
+        }
+        storedNames.clear();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<String> serialUpload() throws IOException {
+        for (MultipartFile file : files) {
+            storedNames.add(fileService.uploadFile(file));
+        }
+        return storedNames;
+    }
+
+    @Benchmark
+    public List<String> parallelUpload() throws IOException {
+        storedNames.addAll(fileService.uploadFiles(files));
+        return storedNames;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FileServiceImplUploadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.uit.hotelmanagement.services;
+
+import com.uit.hotelmanagement.repositories.PhotoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+// a failed parallel upload must leave nothing behind, the timing lives in FileServiceImplUploadBenchmark
+class FileServiceImplUploadTest {
+    private static final int PHOTOS = 5;
+    private static final int PHOTO_BYTES = 256 * 1024;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void failedPartRemovesTheFilesOfItsBatch() throws Exception {
+        for (boolean deduplicate : new boolean[]{false, true}) {
+            FileService fileService = newFileService(deduplicate);
+
+            MultipartFile[] files = randomPhotos();
+            files[PHOTOS - 1] = new BrokenMultipartFile();
+
+            assertThrows(IOException.class, () -> fileService.uploadFiles(files));
+            assertEquals(0, countFiles());
+        }
+    }
+
+    @Test
+    void failedBatchKeepsBlobsItOnlyReused() throws Exception {
+        FileService fileService = newFileService(true);
+
+        MultipartFile[] files = randomPhotos();
+        String storedName = fileService.uploadFile(files[0]);
+
+        files[PHOTOS - 1] = new BrokenMultipartFile();
+
+        assertThrows(IOException.class, () -> fileService.uploadFiles(files));
+        assertEquals(1, countFiles());
+        assertEquals(storedName, fileService.uploadFile(files[0]));
+    }
+
+    private FileService newFileService(boolean deduplicate) {
+        FileServiceImpl fileService = new FileServiceImpl(
+                new PhotoCacheServiceImpl(false, DataSize.ofMegabytes(64), DataSize.ofMegabytes(4)),
+                mock(ImageResizeService.class), mock(PhotoRepository.class));
+        ReflectionTestUtils.setField(fileService, "path", directory.toString());
+        ReflectionTestUtils.setField(fileService, "deduplicate", deduplicate);
+        // a zero grace lets the test delete the blobs it just wrote
+        ReflectionTestUtils.setField(fileService, "grace", Duration.ZERO);
+        return fileService;
+    }
+
+    private MultipartFile[] randomPhotos() {
+        MultipartFile[] files = new MultipartFile[PHOTOS];
+
+        for (int i = 0; i < PHOTOS; i++) {
+            byte[] content = new byte[PHOTO_BYTES];
+            ThreadLocalRandom.current().nextBytes(content);
+            files[i] = new MockMultipartFile("files", "photo" + i + ".jpg", "image/jpeg", content);
+        }
+
+        return files;
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static class BrokenMultipartFile extends MockMultipartFile {
+        private BrokenMultipartFile() {
+            super("files", "broken.jpg", "image/jpeg", new byte[0]);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            throw new IOException("Connection reset while reading the part");
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            throw new IOException("Connection reset while reading the part");
+        }
+    }
+}